@@ -0,0 +1,71 @@
+package com.cst438;
+
+import com.cst438.service.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * JWT encode at login and decode on every authenticated request, using the encoder and
+ * decoder beans of SecurityConfiguration with a freshly generated RSA 2048 key pair.
+ * decode verifies the signature every time, cachedDecode is the CachingJwtDecoder bean
+ * hitting its cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    TokenService tokenService;
+    JwtDecoder decoder;
+    JwtDecoder cachedDecoder;
+    Authentication authentication;
+    String token;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keys = generator.generateKeyPair();
+        RsaKeyProperties rsaKeys = new RsaKeyProperties((RSAPublicKey) keys.getPublic(), (RSAPrivateKey) keys.getPrivate());
+        LoginProperties login = new LoginProperties(Duration.ofMinutes(15), Duration.ofHours(12), 1, 100, 5000);
+        SecurityConfiguration config = new SecurityConfiguration(null, rsaKeys, login);
+        tokenService = new TokenService(config.jwtEncoder(), rsaKeys, login);
+        decoder = config.rsaJwtDecoder();
+        cachedDecoder = config.jwtDecoder(new SimpleMeterRegistry());
+        authentication = new UsernamePasswordAuthenticationToken("ted@csumb.edu", null,
+                List.of(new SimpleGrantedAuthority("ROLE_INSTRUCTOR")));
+        token = tokenService.generateToken(authentication);
+        cachedDecoder.decode(token);
+    }
+
+    @Benchmark
+    public String encode() {
+        return tokenService.generateToken(authentication);
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return decoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt cachedDecode() {
+        return cachedDecoder.decode(token);
+    }
+}
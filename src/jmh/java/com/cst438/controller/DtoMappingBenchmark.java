@@ -0,0 +1,63 @@
+package com.cst438.controller;
+
+import com.cst438.domain.*;
+import com.cst438.dto.AssignmentDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Entity to DTO mapping of AssignmentController for a section of ROSTER assignments.
+ * Entities are built in memory so only the mapping is measured.  Rosters are read as
+ * EnrollmentDTO rows, see RepositoryQueryBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"30", "300"})
+    int roster;
+
+    List<Assignment> assignments;
+
+    @Setup
+    public void setup() {
+        Term t = new Term();
+        t.setYear(2025);
+        t.setSemester("Fall");
+        Course c = new Course();
+        c.setCourseId("cst438");
+        c.setTitle("Software Engineering");
+        c.setCredits(4);
+        Section s = new Section();
+        s.setSectionNo(1);
+        s.setSectionId(1);
+        s.setCourse(c);
+        s.setTerm(t);
+        s.setBuilding("90");
+        s.setRoom("B104");
+        s.setTimes("W F 10-11");
+        s.setInstructorEmail("ted@csumb.edu");
+        assignments = new ArrayList<>();
+        for (int i=0; i<roster; i++) {
+            Assignment a = new Assignment();
+            a.setAssignmentId(i);
+            a.setTitle("assignment"+i);
+            a.setDueDate(Date.valueOf("2025-09-01"));
+            a.setSection(s);
+            assignments.add(a);
+        }
+    }
+
+    @Benchmark
+    public List<AssignmentDTO> assignmentDTOs() {
+        return assignments.stream().map(AssignmentController::toDTO).toList();
+    }
+}
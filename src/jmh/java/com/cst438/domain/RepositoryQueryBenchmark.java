@@ -0,0 +1,155 @@
+package com.cst438.domain;
+
+import com.cst438.DataGenerator;
+import com.cst438.DataGeneratorProperties;
+import com.cst438.GradebookMain;
+import com.cst438.dto.AssignmentDTO;
+import com.cst438.dto.AssignmentStudentDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.GradeDTO;
+import com.cst438.dto.SectionDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Repository queries behind the instructor and student pages against an in-memory H2
+ * database filled by DataGenerator with STUDENTS students in SECTIONS sections of ASSIGNMENTS
+ * assignments, every score set.  The application context is started without the web server,
+ * RabbitMQ listener or outbox relay.
+ *
+ * rosterEntities and sectionAssignmentsEntities are the way the roster and assignment list were
+ * read before ReadQueryRepository: managed entities in a read-write transaction, mapped to DTOs
+ * and dirty checked at commit.  Compare them with roster and sectionAssignments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryQueryBenchmark {
+
+    static final int STUDENTS = 8000;
+    static final int SECTIONS = 200;
+    static final int ASSIGNMENTS = 10;
+    static final int FIRST_ID = DataGenerator.FIRST_ID;
+
+    ConfigurableApplicationContext context;
+    ReadQueryRepository readQueryRepository;
+    EntityManagerFactory entityManagerFactory;
+    int instructors;
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(GradebookMain.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jmh",
+                        "registrar.broker=in-memory",
+                        "registrar.outbox.relay-enabled=false",
+                        "spring.rabbitmq.listener.simple.auto-startup=false",
+                        "logging.level.root=WARN")
+                .run();
+        DataGenerator generator = new DataGenerator(context.getBean(JdbcTemplate.class),
+                new DataGeneratorProperties(STUDENTS, SECTIONS, ASSIGNMENTS, 1, 4, 10, 438));
+        generator.generate();
+        instructors = generator.instructors();
+        readQueryRepository = context.getBean(ReadQueryRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        random = new Random(438);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<SectionDTO> instructorSections() {
+        return readQueryRepository.findSectionDTOsByInstructorEmailAndYearAndSemester(
+                DataGenerator.instructorEmail(random.nextInt(instructors)), 2025, "Fall");
+    }
+
+    @Benchmark
+    public List<GradeDTO> gradeSheet() {
+        return readQueryRepository.findGradeSheetByAssignmentId(FIRST_ID + random.nextInt(SECTIONS * ASSIGNMENTS));
+    }
+
+    @Benchmark
+    public List<Object[]> gradebook() {
+        return readQueryRepository.findGradebookCells(FIRST_ID + random.nextInt(SECTIONS));
+    }
+
+    @Benchmark
+    public List<AssignmentStudentDTO> studentAssignments() {
+        return readQueryRepository.findAssignmentStudentDTOsByStudentEmailAndYearAndSemester(
+                DataGenerator.studentEmail(random.nextInt(STUDENTS)), 2025, "Fall");
+    }
+
+    @Benchmark
+    public List<EnrollmentDTO> roster() {
+        return readQueryRepository.findEnrollmentDTOsBySectionNo(FIRST_ID + random.nextInt(SECTIONS));
+    }
+
+    @Benchmark
+    public List<EnrollmentDTO> rosterEntities() {
+        int secNo = FIRST_ID + random.nextInt(SECTIONS);
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<EnrollmentDTO> dtos = em.createQuery("select e from Enrollment e join fetch e.student u " +
+                            "join fetch e.section s join fetch s.course join fetch s.term " +
+                            "where s.sectionNo=:sectionNo order by u.name", Enrollment.class)
+                    .setParameter("sectionNo", secNo)
+                    .getResultStream()
+                    .map(e -> new EnrollmentDTO(e.getEnrollmentId(), e.getGrade(),
+                            e.getStudent().getId(), e.getStudent().getName(), e.getStudent().getEmail(),
+                            e.getSection().getCourse().getCourseId(), e.getSection().getCourse().getTitle(),
+                            e.getSection().getSectionId(), e.getSection().getSectionNo(),
+                            e.getSection().getBuilding(), e.getSection().getRoom(), e.getSection().getTimes(),
+                            e.getSection().getCourse().getCredits(),
+                            e.getSection().getTerm().getYear(), e.getSection().getTerm().getSemester()))
+                    .toList();
+            em.getTransaction().commit();
+            return dtos;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public List<AssignmentDTO> sectionAssignments() {
+        return readQueryRepository.findAssignmentDTOsBySectionNo(FIRST_ID + random.nextInt(SECTIONS));
+    }
+
+    @Benchmark
+    public List<AssignmentDTO> sectionAssignmentsEntities() {
+        int secNo = FIRST_ID + random.nextInt(SECTIONS);
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<AssignmentDTO> dtos = em.createQuery("select a from Assignment a join fetch a.section s " +
+                            "join fetch s.course where s.sectionNo=:secNo order by a.dueDate, a.assignmentId", Assignment.class)
+                    .setParameter("secNo", secNo)
+                    .getResultStream()
+                    .map(a -> new AssignmentDTO(a.getAssignmentId(), a.getTitle(), a.getDueDate().toString(),
+                            a.getSection().getCourse().getCourseId(), a.getSection().getSectionId(),
+                            a.getSection().getSectionNo()))
+                    .toList();
+            em.getTransaction().commit();
+            return dtos;
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.cst438.service;
+
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.SectionDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * JSON encoding of messages sent to the registrar and decoding of messages received from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistrarJsonBenchmark {
+
+    @Param({"1", "50"})
+    int batch;
+
+    List<EnrollmentDTO> enrollments;
+    String enrollmentMessage;
+    String sectionMessage;
+
+    @Setup
+    public void setup() {
+        enrollments = new ArrayList<>();
+        for (int i=0; i<batch; i++) {
+            enrollments.add(new EnrollmentDTO(i, "A", i, "student"+i, "student"+i+"@csumb.edu", "cst438",
+                    "Software Engineering", 1, 1, "90", "B104", "W F 10-11", 4, 2025, "Fall"));
+        }
+        enrollmentMessage = "addEnrollment " + RegistrarServiceProxy.asJsonString(enrollments.get(0));
+        sectionMessage = "addSection " + RegistrarServiceProxy.asJsonString(new SectionDTO(1, 2025, "Fall",
+                "cst438", "Software Engineering", 1, "90", "B104", "W F 10-11", "ted", "ted@csumb.edu"));
+    }
+
+    @Benchmark
+    public String encodeBatch() {
+        return "updateEnrollments " + RegistrarServiceProxy.asJsonString(enrollments);
+    }
+
+    @Benchmark
+    public RegistrarMessage decodeEnrollment() {
+        return RegistrarMessage.parse(enrollmentMessage);
+    }
+
+    @Benchmark
+    public RegistrarMessage decodeSection() {
+        return RegistrarMessage.parse(sectionMessage);
+    }
+}
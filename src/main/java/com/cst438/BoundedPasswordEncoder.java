@@ -0,0 +1,90 @@
+package com.cst438;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * PasswordEncoder that runs matches() on a small pool of its own.
+ *
+ * A BCrypt check is ~100ms of CPU, so a burst of logins would otherwise take every request
+ * thread and core.  Here at most `threads` checks run at once, `queue` more may wait, and
+ * anything beyond that fails at once with LoginThrottledException (503 to the client).
+ *
+ * The request thread still waits in get() for its check, so up to threads+queue request
+ * threads can be held here, each for at most timeoutMs.  A check that times out is cancelled
+ * and taken off the queue so it never runs; one that already started runs to the end, since
+ * BCrypt does not stop when interrupted.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    // a login rejected because the password check pool is full or too slow
+    public static class LoginThrottledException extends AuthenticationServiceException {
+        public LoginThrottledException(String msg) {
+            super(msg);
+        }
+    }
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queue, long timeoutMs) {
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queue),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt");
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        FutureTask<Boolean> check = new FutureTask<>(() -> delegate.matches(rawPassword, encodedPassword));
+        try {
+            executor.execute(check);
+        } catch (RejectedExecutionException e) {
+            throw new LoginThrottledException("too many logins in progress");
+        }
+        try {
+            return check.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // a cancelled task that is still queued is removed and never runs
+            check.cancel(true);
+            executor.remove(check);
+            throw new LoginThrottledException("password check timed out");
+        } catch (InterruptedException e) {
+            check.cancel(true);
+            executor.remove(check);
+            Thread.currentThread().interrupt();
+            throw new LoginThrottledException("password check interrupted");
+        } catch (ExecutionException e) {
+            throw new AuthenticationServiceException("password check failed", e.getCause());
+        }
+    }
+
+    // checks waiting for a free thread
+    int queued() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
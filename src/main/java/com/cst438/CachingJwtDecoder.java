@@ -0,0 +1,100 @@
+package com.cst438;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * JwtDecoder that remembers tokens it has already verified.
+ *
+ * A token is verified by the delegate (RSA signature and claims) the first time it is seen
+ * and the decoded Jwt is kept until the token expires, keyed by the SHA-256 of the token so
+ * the map does not hold bearer tokens.  Lookups are a ConcurrentHashMap get and take no lock.
+ * Tokens without an expiry are not cached.
+ *
+ * The cache holds at most maxSize tokens.  When it is full expired tokens are dropped first
+ * and then arbitrary ones, which only costs those tokens another verification.
+ *
+ * Metrics: jwt.cache.requests tagged result=hit|miss and the jwt.cache.size gauge.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final JwtDecoder delegate;
+    private final int maxSize;
+    private final Clock clock;
+    private final Map<String, Jwt> cache = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxSize, Clock clock, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.clock = clock;
+        hits = Counter.builder("jwt.cache.requests").tag("result", "hit").register(registry);
+        misses = Counter.builder("jwt.cache.requests").tag("result", "miss").register(registry);
+        Gauge.builder("jwt.cache.size", cache, Map::size).register(registry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = sha256(token);
+        Jwt jwt = cache.get(key);
+        if (jwt != null) {
+            if (clock.instant().isBefore(jwt.getExpiresAt())) {
+                hits.increment();
+                return jwt;
+            }
+            // expired, the delegate decides (it allows for clock skew) and reports the error
+            cache.remove(key, jwt);
+        }
+        misses.increment();
+        jwt = delegate.decode(token);
+        if (jwt.getExpiresAt() != null && clock.instant().isBefore(jwt.getExpiresAt())) {
+            if (cache.size() >= maxSize) {
+                evict();
+            }
+            cache.put(key, jwt);
+        }
+        return jwt;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    // drop expired tokens, then arbitrary ones until there is room for a quarter of maxSize
+    private void evict() {
+        Instant now = clock.instant();
+        cache.values().removeIf(jwt -> !now.isBefore(jwt.getExpiresAt()));
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() > maxSize * 3 / 4 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.cst438;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Generate a large synthetic dataset on top of data.sql with the datagen profile:
+ *   mvn spring-boot:run -Dspring-boot.run.profiles=datagen -Dspring-boot.run.arguments=--datagen.students=50000
+ * Instructors, students, sections of the courses in data.sql, assignments, enrollments and a
+ * score for every grade are written with JDBC batch inserts.  The same seed gives the same data.
+ * Ids start at FIRST_ID, so the rows of an entity are FIRST_ID .. FIRST_ID+count-1, and the
+ * assignment and grade sequences are moved past the generated ids.  Hibernate may hold blocks of
+ * ids it already took from those sequences; they lie below the sequences' next values, so data is
+ * only generated while both sequences are still at or below FIRST_ID, and they only move forward.
+ * Every generated user has the password "password".
+ */
+@Component
+@Profile("datagen")
+public class DataGenerator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DataGenerator.class);
+
+    public static final int FIRST_ID = 100000;
+    static final int BATCH_SIZE = 1000;
+    // rows held in memory before they are written
+    static final int CHUNK_SIZE = 20000;
+    static final String[] COURSES = {"cst336", "cst334", "cst363", "cst489", "cst499", "cst599"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataGeneratorProperties properties;
+
+    public DataGenerator(JdbcTemplate jdbcTemplate, DataGeneratorProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    public static String instructorEmail(int i) {
+        return "instructor" + i + "@example.edu";
+    }
+
+    public static String studentEmail(int i) {
+        return "student" + i + "@example.edu";
+    }
+
+    public int instructors() {
+        return (properties.sections() + properties.sectionsPerInstructor() - 1) / properties.sectionsPerInstructor();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generate();
+    }
+
+    public void generate() {
+        long start = System.currentTimeMillis();
+        Random random = new Random(properties.seed());
+        String password = new BCryptPasswordEncoder().encode("password");
+        int instructors = instructors();
+        int sections = properties.sections();
+        int assignments = properties.assignmentsPerSection();
+        int students = properties.students();
+        int perStudent = Math.min(properties.enrollmentsPerStudent(), sections);
+        for (String sequence : new String[] {"assignment_seq", "grade_seq"}) {
+            if (nextValue(sequence) > FIRST_ID) {
+                throw new IllegalStateException(sequence + " has handed out ids from " + FIRST_ID + ", generate into a new database");
+            }
+        }
+
+        Batch users = new Batch(true, "insert into user_table (id, name, email, password, type) values (?,?,?,?,?)");
+        for (int i = 0; i < instructors; i++) {
+            users.add(FIRST_ID + i, "instructor" + i, instructorEmail(i), password, "INSTRUCTOR");
+        }
+        for (int i = 0; i < students; i++) {
+            users.add(FIRST_ID + instructors + i, "student" + i, studentEmail(i), password, "STUDENT");
+        }
+        users.flush();
+
+        Batch section = new Batch(true, "insert into section (section_no, course_id, section_id, term_id, building, room, times, instructor_email) " +
+                "values (?,?,?,?,?,?,?,?)");
+        Batch assignment = new Batch(true, "insert into assignment (assignment_id, section_no, title, due_date) values (?,?,?,?)");
+        LocalDate firstDue = LocalDate.of(2025, 8, 27);
+        for (int s = 0; s < sections; s++) {
+            section.add(FIRST_ID + s, COURSES[s % COURSES.length], s / COURSES.length + 1, properties.termId(),
+                    "90", "B" + (100 + s % 50), "M W 10-11", instructorEmail(s / properties.sectionsPerInstructor()));
+            for (int j = 0; j < assignments; j++) {
+                assignment.add(FIRST_ID + s * assignments + j, FIRST_ID + s, "assignment " + (j + 1),
+                        Date.valueOf(firstDue.plusDays(7L * (j % 16))));
+            }
+        }
+        section.flush();
+        assignment.flush();
+
+        // enrollments are written before the grades that refer to them
+        Batch enrollment = new Batch(false, "insert into enrollment (enrollment_id, section_no, user_id) values (?,?,?)");
+        Batch grade = new Batch(false, "insert into grade (grade_id, enrollment_id, assignment_id, score) values (?,?,?,?)");
+        int enrollmentId = FIRST_ID;
+        int gradeId = FIRST_ID;
+        int[] chosen = new int[perStudent];
+        for (int i = 0; i < students; i++) {
+            // distinct random sections for the student
+            for (int k = 0; k < perStudent; k++) {
+                int s;
+                boolean repeated;
+                do {
+                    s = random.nextInt(sections);
+                    repeated = false;
+                    for (int m = 0; m < k; m++) {
+                        repeated |= chosen[m] == s;
+                    }
+                } while (repeated);
+                chosen[k] = s;
+                enrollment.add(enrollmentId, FIRST_ID + s, FIRST_ID + instructors + i);
+                for (int j = 0; j < assignments; j++) {
+                    grade.add(gradeId++, enrollmentId, FIRST_ID + s * assignments + j, score(random));
+                }
+                enrollmentId++;
+            }
+            if (grade.size() >= CHUNK_SIZE) {
+                enrollment.flush();
+                grade.flush();
+            }
+        }
+        enrollment.flush();
+        grade.flush();
+        long rows = users.written + section.written + assignment.written + enrollment.written + grade.written;
+
+        // ids handed out by hibernate and the column defaults must not collide with generated ids
+        moveForward("assignment_seq", FIRST_ID + sections * assignments);
+        moveForward("grade_seq", gradeId);
+
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        log.info("Generated {} rows in {} ms ({} rows/s): {} instructors, {} students, {} sections, {} enrollments, {} grades",
+                rows, millis, rows * 1000 / millis, instructors, students, sections,
+                enrollmentId - FIRST_ID, gradeId - FIRST_ID);
+    }
+
+    // the value the sequence hands out next
+    private long nextValue(String sequence) {
+        return jdbcTemplate.queryForObject("select base_value from information_schema.sequences " +
+                "where sequence_schema='PUBLIC' and sequence_name=?", Long.class, sequence.toUpperCase());
+    }
+
+    private void moveForward(String sequence, long next) {
+        if (next > nextValue(sequence)) {
+            jdbcTemplate.execute("alter sequence " + sequence + " restart with " + next);
+        }
+    }
+
+    // scores are roughly normal around 78
+    private static int score(Random random) {
+        return (int) Math.max(0, Math.min(100, Math.round(78 + 12 * random.nextGaussian())));
+    }
+
+    // rows for one insert statement written with JDBC batches.  With autoFlush the rows are
+    // written every CHUNK_SIZE rows, otherwise when the caller flushes.
+    private class Batch {
+        final boolean autoFlush;
+        final String sql;
+        final List<Object[]> rows = new ArrayList<>();
+        long written;
+
+        Batch(boolean autoFlush, String sql) {
+            this.autoFlush = autoFlush;
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (autoFlush && rows.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        void flush() {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows, BATCH_SIZE, (ps, row) -> {
+                    for (int c = 0; c < row.length; c++) {
+                        ps.setObject(c + 1, row[c]);
+                    }
+                });
+                written += rows.size();
+                rows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.cst438;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+ * datagen.* settings for DataGenerator
+ */
+@ConfigurationProperties(prefix="datagen")
+public record DataGeneratorProperties(
+        @DefaultValue("50000") int students,
+        @DefaultValue("2000") int sections,
+        @DefaultValue("20") int assignmentsPerSection,
+        @DefaultValue("1") int enrollmentsPerStudent,  // sections each student is enrolled in
+        @DefaultValue("4") int sectionsPerInstructor,
+        @DefaultValue("10") int termId,               // 2025 Fall in data.sql
+        @DefaultValue("438") long seed
+) {
+}
@@ -1,11 +1,18 @@
 package com.cst438;
 
+import com.cst438.metrics.StatementBudgetProperties;
+import com.cst438.service.OutboxProperties;
+import com.cst438.service.OwnershipIndexProperties;
+import com.cst438.service.RegistrarListenerProperties;
+import com.cst438.service.UserDirectoryProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
-@EnableConfigurationProperties(RsaKeyProperties.class)
+@EnableConfigurationProperties({RsaKeyProperties.class, OutboxProperties.class, RegistrarListenerProperties.class,
+		DataGeneratorProperties.class, StatementBudgetProperties.class, LoginProperties.class,
+		UserDirectoryProperties.class, OwnershipIndexProperties.class})
 public class GradebookMain {
 
 	public static void main(String[] args) {
@@ -0,0 +1,19 @@
+package com.cst438;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/*
+ * gradebook.login.* settings for tokens and password checks
+ */
+@ConfigurationProperties(prefix="gradebook.login")
+public record LoginProperties(
+        @DefaultValue("15m") Duration accessTokenTtl,   // lifetime of the jwt sent on every request
+        @DefaultValue("12h") Duration refreshTokenTtl,  // how long /login/refresh re-issues access tokens
+        @DefaultValue("0") int bcryptThreads,           // threads checking passwords, 0 = half the cores
+        @DefaultValue("100") int bcryptQueue,           // logins waiting for a thread before 503
+        @DefaultValue("5000") long bcryptTimeoutMs      // longest a login waits for its password check
+) {
+}
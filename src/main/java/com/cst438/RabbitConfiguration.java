@@ -0,0 +1,44 @@
+package com.cst438;
+
+import com.cst438.service.RegistrarListenerProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitConfiguration {
+
+    // queue of messages from the registrar service.  With single active consumer only one
+    // gradebook node receives messages at a time, which keeps their order across nodes.
+    @Bean
+    public Queue gradebookServiceQueue(RegistrarListenerProperties properties) {
+        QueueBuilder builder = QueueBuilder.durable("gradebook_service");
+        if (properties.singleActiveConsumer()) {
+            builder.singleActiveConsumer();
+        }
+        return builder.build();
+    }
+
+    // listener container that delivers messages from the registrar in batches
+    @Bean
+    public SimpleRabbitListenerContainerFactory registrarBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            RegistrarListenerProperties properties) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(properties.batchSize());
+        factory.setReceiveTimeout(properties.receiveTimeoutMs());
+        factory.setConcurrentConsumers(properties.concurrency());
+        factory.setMaxConcurrentConsumers(properties.concurrency());
+        // the broker must be able to deliver a whole batch without waiting for acks
+        factory.setPrefetchCount(Math.max(properties.prefetch(), properties.batchSize()));
+        return factory;
+    }
+}
@@ -1,7 +1,16 @@
 package com.cst438;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import com.cst438.service.TokenService;
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -16,8 +25,11 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
 
 import com.nimbusds.jose.jwk.JWK;
@@ -27,6 +39,8 @@ import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
 
+import java.time.Clock;
+
 import static org.springframework.security.config.Customizer.withDefaults;
 
 
@@ -39,9 +53,12 @@ public class SecurityConfiguration {
 
     private final UserDetailsService userDetailsService;
 
-    public SecurityConfiguration(UserDetailsService userDetailsService, RsaKeyProperties rsaKeys) {
+    private final LoginProperties loginProperties;
+
+    public SecurityConfiguration(UserDetailsService userDetailsService, RsaKeyProperties rsaKeys, LoginProperties loginProperties) {
         this.userDetailsService = userDetailsService;
         this.rsaKeys = rsaKeys;
+        this.loginProperties = loginProperties;
     }
 
     @Bean
@@ -53,14 +70,55 @@ public class SecurityConfiguration {
     public AuthenticationProvider authenticationProvider(){
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();  //dW
         authenticationProvider.setUserDetailsService(userDetailsService);
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        // password checks run on their own bounded pool so a login spike cannot take the request threads
+        int threads = (loginProperties.bcryptThreads() > 0)
+                ? loginProperties.bcryptThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        authenticationProvider.setPasswordEncoder(new BoundedPasswordEncoder(passwordEncoder(),
+                threads, loginProperties.bcryptQueue(), loginProperties.bcryptTimeoutMs()));
         return authenticationProvider;
     }
 
+    // 503 when the password check pool is full, the usual basic auth challenge otherwise
+    AuthenticationEntryPoint loginEntryPoint() {
+        BasicAuthenticationEntryPoint basic = new BasicAuthenticationEntryPoint();
+        basic.setRealmName("Realm");
+        return (request, response, e) -> {
+            if (e instanceof BoundedPasswordEncoder.LoginThrottledException) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+            } else {
+                basic.commence(request, response, e);
+            }
+        };
+    }
+
+    // requests that arrive on the management port.  Metrics and health are open to the
+    // scraper there, nothing else is served.  The port is looked up per request because
+    // with management.server.port=0 it is only known once the management server has started.
+    @Bean
+    @Order(1)
+    public SecurityFilterChain managementFilterChain(HttpSecurity http, Environment environment) throws Exception {
+        RequestMatcher managementPort = request -> {
+            Integer port = environment.getProperty("local.management.port", Integer.class);
+            return port != null && request.getLocalPort() == port;
+        };
+        http
+                .securityMatcher(managementPort)
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll()
+                        .anyRequest().denyAll()
+                )
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(
             HttpSecurity http,
-            HandlerMappingIntrospector introspector) throws Exception {
+            HandlerMappingIntrospector introspector,
+            JwtDecoder jwtDecoder) throws Exception {
 
         http
                 .headers(headers ->
@@ -72,20 +130,33 @@ public class SecurityConfiguration {
                                 // list of unsecured URLs for h2 console, and for  things needed in assignment 8 for AWS
                                 AntPathRequestMatcher.antMatcher("/h2-console/**"),
                                 AntPathRequestMatcher.antMatcher("/"),
-                                AntPathRequestMatcher.antMatcher("/exit")
+                                AntPathRequestMatcher.antMatcher("/exit"),
+                                // the refresh token in the body is the credential
+                                AntPathRequestMatcher.antMatcher(HttpMethod.POST, "/login/refresh")
                         ).permitAll()
+                        // streamed responses (gradebook.csv) finish on an async dispatch of a request
+                        // that was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .anyRequest().authenticated()
                 )
-                .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.decoder(jwtDecoder())))
+                .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.decoder(jwtDecoder)))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .httpBasic(withDefaults());
+                .httpBasic(basic -> basic.authenticationEntryPoint(loginEntryPoint()));
 
         return http.build();
     }
 
+    // verified tokens are cached so a token's RSA signature is checked once, not on every request
     @Bean
-    JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(rsaKeys.publicKey()).build();
+    JwtDecoder jwtDecoder(MeterRegistry registry) {
+        return new CachingJwtDecoder(rsaJwtDecoder(), CachingJwtDecoder.DEFAULT_MAX_SIZE, Clock.systemUTC(), registry);
+    }
+
+    // refresh tokens are not accepted on API requests
+    JwtDecoder rsaJwtDecoder() {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withPublicKey(rsaKeys.publicKey()).build();
+        decoder.setJwtValidator(TokenService.validator(TokenService.ACCESS));
+        return decoder;
     }
 
     @Bean
@@ -4,6 +4,9 @@ import com.cst438.domain.*;
 import com.cst438.dto.AssignmentDTO;
 import com.cst438.dto.AssignmentStudentDTO;
 import com.cst438.dto.SectionDTO;
+import com.cst438.service.AssignmentStatsService;
+import com.cst438.service.OwnershipIndex;
+import com.cst438.service.ReferenceDataCache;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -26,18 +29,27 @@ public class AssignmentController {
     private final SectionRepository sectionRepository;
     private final AssignmentRepository assignmentRepository;
     private final GradeRepository gradeRepository;
-    private final UserRepository userRepository;
+    private final AssignmentStatsService statsService;
+    private final ReferenceDataCache referenceDataCache;
+    private final OwnershipIndex ownershipIndex;
+    private final ReadQueryRepository readQueryRepository;
 
     public AssignmentController(
             SectionRepository sectionRepository,
             AssignmentRepository assignmentRepository,
             GradeRepository gradeRepository,
-            UserRepository userRepository
+            AssignmentStatsService statsService,
+            ReferenceDataCache referenceDataCache,
+            OwnershipIndex ownershipIndex,
+            ReadQueryRepository readQueryRepository
     ) {
         this.sectionRepository = sectionRepository;
         this.assignmentRepository = assignmentRepository;
         this.gradeRepository = gradeRepository;
-        this.userRepository = userRepository;
+        this.statsService = statsService;
+        this.referenceDataCache = referenceDataCache;
+        this.ownershipIndex = ownershipIndex;
+        this.readQueryRepository = readQueryRepository;
     }
 
     // get Sections for an instructor
@@ -48,22 +60,7 @@ public class AssignmentController {
             @RequestParam("semester") String semester,
             Principal principal)  {
         // return the Sections that have instructorEmail for the user for the given term.
-        List<Section> sections = sectionRepository.findByInstructorEmailAndYearAndSemester(principal.getName(), year, semester);
-        return sections.stream().map(s -> {
-            User instructor = userRepository.findByEmail(principal.getName());
-            return new SectionDTO(
-                    s.getSectionNo(),
-                    s.getTerm().getYear(),
-                    s.getTerm().getSemester(),
-                    s.getCourse().getCourseId(),
-                    s.getCourse().getTitle(),
-                    s.getSectionId(),
-                    s.getBuilding(),
-                    s.getRoom(),
-                    s.getTimes(),
-                    instructor.getName(),
-                    s.getInstructorEmail());
-        }).toList();
+        return readQueryRepository.findSectionDTOsByInstructorEmailAndYearAndSemester(principal.getName(), year, semester);
     }
 
     // instructor lists assignments for a section.
@@ -75,18 +72,10 @@ public class AssignmentController {
 
         // verify that user is the instructor for the section
         //  return list of assignments
-        Section s = sectionRepository.findById(secNo).orElse(null);
-        if (s==null || !s.getInstructorEmail().equals(principal.getName())) {
+        if (!ownershipIndex.ownsSection(principal.getName(), secNo)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid section no");
         }
-        return s.getAssignments().stream().map(a -> new AssignmentDTO(
-                a.getAssignmentId(),
-                a.getTitle(),
-                a.getDueDate().toString(),
-                a.getSection().getCourse().getCourseId(),
-                a.getSection().getSectionId(),
-                secNo
-        )).toList();
+        return readQueryRepository.findAssignmentDTOsBySectionNo(secNo);
     }
 
 
@@ -98,8 +87,11 @@ public class AssignmentController {
         //  create and save an Assignment entity
         //  user must be the instructor for the Section
         //  return AssignmentDTO with database generated primary key
+        if (!ownershipIndex.ownsSection(principal.getName(), dto.secNo())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid section no");
+        }
         Section s = sectionRepository.findById(dto.secNo()).orElse(null);
-        if (s==null || !s.getInstructorEmail().equals(principal.getName())) {
+        if (s==null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid section no");
         }
         Assignment a = new Assignment();
@@ -115,14 +107,9 @@ public class AssignmentController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "due data invalid format");
         }
         assignmentRepository.save(a);
-        return new AssignmentDTO(
-                a.getAssignmentId(),
-                a.getTitle(),
-                a.getDueDate().toString(),
-                a.getSection().getCourse().getCourseId(),
-                a.getSection().getSectionId(),
-                s.getSectionNo()
-        );
+        referenceDataCache.evictAssignmentsAfterCommit(s.getSectionNo());
+        ownershipIndex.assignmentAddedAfterCommit(a.getAssignmentId(), s.getSectionNo());
+        return toDTO(a);
     }
 
 
@@ -131,8 +118,11 @@ public class AssignmentController {
     public AssignmentDTO updateAssignment(@Valid @RequestBody AssignmentDTO dto, Principal principal) {
         //  update Assignment Entity.  only title and dueDate fields can be changed.
         //  user must be instructor of the Section
+        if (!ownershipIndex.ownsAssignment(principal.getName(), dto.id())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid assignment id");
+        }
         Assignment a = assignmentRepository.findById(dto.id()).orElse(null);
-        if (a==null || !a.getSection().getInstructorEmail().equals(principal.getName())) {
+        if (a==null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid assignment id");
         }
         a.setTitle(dto.title());
@@ -146,14 +136,9 @@ public class AssignmentController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "due data invalid format");
         }
         assignmentRepository.save(a);
-        return new AssignmentDTO(
-                a.getAssignmentId(),
-                a.getTitle(),
-                a.getDueDate().toString(),
-                a.getSection().getCourse().getCourseId(),
-                a.getSection().getSectionId(),
-                a.getSection().getSectionNo()
-        );
+        // the section's list is ordered by due date
+        referenceDataCache.evictAssignmentsAfterCommit(a.getSection().getSectionNo());
+        return toDTO(a);
     }
 
 
@@ -162,11 +147,25 @@ public class AssignmentController {
     public void deleteAssignment(@PathVariable("assignmentId") int assignmentId, Principal principal) {
         // verify that user is the instructor of the section
         // delete the Assignment entity
-        Assignment a = assignmentRepository.findById(assignmentId).orElse(null);
-        if (a==null || !a.getSection().getInstructorEmail().equals(principal.getName())) {
+        int secNo = ownershipIndex.ownedSectionOfAssignment(principal.getName(), assignmentId);
+        if (secNo < 0) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid assignment id");
         }
-        assignmentRepository.delete(a);
+        assignmentRepository.deleteById(assignmentId);
+        statsService.removeAfterCommit(assignmentId);
+        referenceDataCache.evictAssignmentsAfterCommit(secNo);
+        ownershipIndex.assignmentRemovedAfterCommit(assignmentId);
+    }
+
+    static AssignmentDTO toDTO(Assignment a) {
+        return new AssignmentDTO(
+                a.getAssignmentId(),
+                a.getTitle(),
+                a.getDueDate().toString(),
+                a.getSection().getCourse().getCourseId(),
+                a.getSection().getSectionId(),
+                a.getSection().getSectionNo()
+        );
     }
 
     // student lists their assignments/grades  ordered by due date
@@ -179,17 +178,6 @@ public class AssignmentController {
 
         //  return AssignmentStudentDTOs with scores (if the assignment has been graded)
         //  for the logged in student.  If assignment has not been graded, return a null score.
-        List<Assignment> assignments = assignmentRepository.findByStudentEmailAndYearAndSemester(principal.getName(), year, semester);
-        return assignments.stream().map(a -> {
-            Grade g = gradeRepository.findByStudentEmailAndAssignmentId(principal.getName(), a.getAssignmentId());
-            return new AssignmentStudentDTO(
-                    a.getAssignmentId(),
-                    a.getTitle(),
-                    a.getDueDate(),
-                    a.getSection().getCourse().getCourseId(),
-                    a.getSection().getSectionId(),
-                    (g==null) ? null : g.getScore()
-                    );
-        }).toList();
+        return readQueryRepository.findAssignmentStudentDTOsByStudentEmailAndYearAndSemester(principal.getName(), year, semester);
     }
 }
@@ -2,32 +2,39 @@ package com.cst438.controller;
 
 import com.cst438.domain.*;
 import com.cst438.dto.EnrollmentDTO;
+import com.cst438.service.OwnershipIndex;
 import com.cst438.service.RegistrarServiceProxy;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.security.Principal;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 public class EnrollmentController {
 
     private final EnrollmentRepository enrollmentRepository;
-    private final SectionRepository sectionRepository;
     private final RegistrarServiceProxy registrar;
+    private final OwnershipIndex ownershipIndex;
+    private final ReadQueryRepository readQueryRepository;
 
     public EnrollmentController (
             EnrollmentRepository enrollmentRepository,
-            SectionRepository sectionRepository,
-            RegistrarServiceProxy registrar
+            RegistrarServiceProxy registrar,
+            OwnershipIndex ownershipIndex,
+            ReadQueryRepository readQueryRepository
     ) {
         this.enrollmentRepository = enrollmentRepository;
-        this.sectionRepository = sectionRepository;
         this.registrar = registrar;
+        this.ownershipIndex = ownershipIndex;
+        this.readQueryRepository = readQueryRepository;
     }
 
 
@@ -37,46 +44,33 @@ public class EnrollmentController {
     public List<EnrollmentDTO> getEnrollments(
             @PathVariable("sectionNo") int sectionNo, Principal principal ) {
 
-        Section s = sectionRepository.findById(sectionNo).orElse(null);
-        if (s==null || ! s.getInstructorEmail().equals(principal.getName())) {
+        if (!ownershipIndex.ownsSection(principal.getName(), sectionNo)) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid section no");
         }
-        List<Enrollment> enrollments = enrollmentRepository
-                .findEnrollmentsBySectionNoOrderByStudentName(sectionNo);
-        return enrollments.stream().map(e -> new EnrollmentDTO(
-                e.getEnrollmentId(),
-                e.getGrade(),
-                e.getStudent().getId(),
-                e.getStudent().getName(),
-                e.getStudent().getEmail(),
-                e.getSection().getCourse().getCourseId(),
-                e.getSection().getCourse().getTitle(),
-                e.getSection().getSectionId(),
-                e.getSection().getSectionNo(),
-                e.getSection().getBuilding(),
-                e.getSection().getRoom(),
-                e.getSection().getTimes(),
-                e.getSection().getCourse().getCredits(),
-                e.getSection().getTerm().getYear(),
-                e.getSection().getTerm().getSemester()
-        )).toList();
+        return readQueryRepository.findEnrollmentDTOsBySectionNo(sectionNo);
     }
 
     // instructor updates enrollment grades
     @PreAuthorize("hasAuthority('SCOPE_ROLE_INSTRUCTOR')")
     @PutMapping("/enrollments")
+    @Transactional
     public void updateEnrollmentGrade(@Valid @RequestBody List<EnrollmentDTO> dtoList, Principal principal) {
         // check that logged in user is instructor for the section
         // update the enrollment grade
-        // send message to Registrar service for grade update
+        // send one message to Registrar service with all grade updates after the transaction commits
+        // the enrollments are read with one statement.  The section is a lazy reference and
+        // only its id is used, so it is not loaded.
+        Map<Integer, Enrollment> enrollments = new HashMap<>();
+        enrollmentRepository.findAllById(dtoList.stream().map(EnrollmentDTO::enrollmentId).toList())
+                .forEach(e -> enrollments.put(e.getEnrollmentId(), e));
         for (EnrollmentDTO dto : dtoList) {
-            Enrollment e = enrollmentRepository.findById(dto.enrollmentId()).orElse(null);
-            if (e==null || !e.getSection().getInstructorEmail().equals(principal.getName())) {
+            Enrollment e = enrollments.get(dto.enrollmentId());
+            if (e==null || !ownershipIndex.ownsSection(principal.getName(), e.getSection().getSectionNo())) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid enrollment "+dto.enrollmentId());
             }
+            // written with a JDBC batch when the transaction commits
             e.setGrade(dto.grade());
-            enrollmentRepository.save(e);
-            registrar.sendMessage("updateEnrollment", dto);
         }
+        registrar.sendBatchMessage("updateEnrollments", dtoList);
     }
 }
@@ -1,27 +1,63 @@
 package com.cst438.controller;
 
 import com.cst438.domain.*;
+import com.cst438.dto.AssignmentStatsDTO;
 import com.cst438.dto.GradeDTO;
+import com.cst438.dto.GradeImportResultDTO;
+import com.cst438.dto.GradebookDTO;
+import com.cst438.dto.GradeUpdateResultDTO;
+import com.cst438.service.AssignmentStatsService;
+import com.cst438.service.GradeImportService;
+import com.cst438.service.GradebookExportService;
+import com.cst438.service.OwnershipIndex;
 import jakarta.validation.Valid;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 public class GradeController {
-    private final AssignmentRepository assignmentRepository;
     private final GradeRepository gradeRepository;
+    private final AssignmentStatsService statsService;
+    private final GradebookExportService exportService;
+    private final GradeImportService importService;
+    private final OwnershipIndex ownershipIndex;
+    private final ReadQueryRepository readQueryRepository;
 
     public GradeController (
-            AssignmentRepository assignmentRepository,
-            GradeRepository gradeRepository
+            GradeRepository gradeRepository,
+            AssignmentStatsService statsService,
+            GradebookExportService exportService,
+            GradeImportService importService,
+            OwnershipIndex ownershipIndex,
+            ReadQueryRepository readQueryRepository
     ) {
-        this.assignmentRepository = assignmentRepository;
         this.gradeRepository = gradeRepository;
+        this.statsService = statsService;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.ownershipIndex = ownershipIndex;
+        this.readQueryRepository = readQueryRepository;
     }
     @PreAuthorize("hasAuthority('SCOPE_ROLE_INSTRUCTOR')")
     @GetMapping("/assignments/{assignmentId}/grades")
@@ -29,44 +65,165 @@ public class GradeController {
         // return a list of GradeDTOs containing student scores for an assignment
         // the user must the instructor for the assignment's section
         // if a Grade entity does not exist, then create the Grade entity with a null score.
-        Assignment a = assignmentRepository.findById(assignmentId).orElse(null);
-        if (a==null || !a.getSection().getInstructorEmail().equals(principal.getName())) {
+        int secNo = ownershipIndex.ownedSectionOfAssignment(principal.getName(), assignmentId);
+        if (secNo < 0) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid assignment id");
         }
-        return a.getSection().getEnrollments().stream().map(e -> {
-            Grade g = gradeRepository.findByStudentEmailAndAssignmentId(e.getStudent().getEmail(), a.getAssignmentId());
-            if (g==null) {
-                // if this is the first time assignment is being graded, create Grade with null score
-                g = new Grade();
-                g.setAssignment(a);
-                g.setEnrollment(e);
-                g.setScore(null);
-                gradeRepository.save(g);
+        List<GradeDTO> grades = readQueryRepository.findGradeSheetByAssignmentId(assignmentId);
+        if (grades.stream().anyMatch(g -> g.gradeId()==0)) {
+            // if this is the first time assignment is being graded, create Grade rows with null score
+            // for all students at once and then reload the grade sheet.
+            createMissingGrades(assignmentId, secNo);
+            grades = readQueryRepository.findGradeSheetByAssignmentId(assignmentId);
+        }
+        return grades;
+    }
+
+    // another request creating the same rows at the same time makes the insert fail on the unique
+    // (enrollment_id, assignment_id) key.  Its rows are committed by then, so the insert is run
+    // once more for any rows that are still missing.
+    private void createMissingGrades(int assignmentId, int secNo) {
+        try {
+            gradeRepository.createMissingGrades(assignmentId, secNo);
+        } catch (DataIntegrityViolationException e) {
+            try {
+                gradeRepository.createMissingGrades(assignmentId, secNo);
+            } catch (DataIntegrityViolationException again) {
+                // created by yet another request
+            }
+        }
+    }
+
+    // mean, median, min, max and histogram of the scores of an assignment
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_INSTRUCTOR')")
+    @GetMapping("/assignments/{assignmentId}/stats")
+    public AssignmentStatsDTO getAssignmentStats(@PathVariable("assignmentId") int assignmentId, Principal principal) {
+        if (!ownershipIndex.ownsAssignment(principal.getName(), assignmentId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid assignment id");
+        }
+        return statsService.getStats(assignmentId);
+    }
+
+    // instructor gets the scores of all students for all assignments of a section
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_INSTRUCTOR')")
+    @GetMapping("/sections/{secNo}/gradebook")
+    public GradebookDTO getGradebook(@PathVariable("secNo") int secNo, Principal principal) {
+        // the matrix and the instructor check come from a single query
+        List<Object[]> cells = readQueryRepository.findGradebookCells(secNo);
+        if (cells.isEmpty() || !principal.getName().equals(cells.get(0)[6])) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid section no");
+        }
+        // rows are ordered by student and then by due date, so the first time an id is
+        // seen gives its position.
+        Map<Integer, Integer> assignmentIndex = new HashMap<>();
+        List<String> titles = new ArrayList<>();
+        Map<Integer, Integer> studentIndex = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        for (Object[] cell : cells) {
+            Integer assignmentId = (Integer) cell[3];
+            if (assignmentId != null && !assignmentIndex.containsKey(assignmentId)) {
+                assignmentIndex.put(assignmentId, titles.size());
+                titles.add((String) cell[4]);
+            }
+            Integer enrollmentId = (Integer) cell[0];
+            if (enrollmentId != null && !studentIndex.containsKey(enrollmentId)) {
+                studentIndex.put(enrollmentId, names.size());
+                names.add((String) cell[1]);
+                emails.add((String) cell[2]);
             }
-            return new GradeDTO(
-                    g.getGradeId(),
-                    e.getStudent().getName(),
-                    e.getStudent().getEmail(),
-                    a.getTitle(),
-                    a.getSection().getCourse().getCourseId(),
-                    a.getSection().getSectionId(),
-                    g.getScore());
-        }).toList();
+        }
+        int[] assignmentIds = new int[titles.size()];
+        assignmentIndex.forEach((id, j) -> assignmentIds[j] = id);
+        int[] enrollmentIds = new int[names.size()];
+        studentIndex.forEach((id, i) -> enrollmentIds[i] = id);
+
+        int[][] scores = new int[names.size()][titles.size()];
+        for (int[] row : scores) {
+            Arrays.fill(row, GradebookDTO.UNGRADED);
+        }
+        for (Object[] cell : cells) {
+            if (cell[0] != null && cell[3] != null && cell[5] != null) {
+                scores[studentIndex.get((Integer) cell[0])][assignmentIndex.get((Integer) cell[3])] = (Integer) cell[5];
+            }
+        }
+        return new GradebookDTO(
+                secNo,
+                assignmentIds,
+                titles.toArray(new String[0]),
+                enrollmentIds,
+                names.toArray(new String[0]),
+                emails.toArray(new String[0]),
+                scores);
     }
 
+    // the gradebook of a section as a CSV file, streamed from the database as it is written
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_INSTRUCTOR')")
+    @GetMapping("/sections/{secNo}/gradebook.csv")
+    public ResponseEntity<StreamingResponseBody> getGradebookCsv(@PathVariable("secNo") int secNo, Principal principal) {
+        if (!ownershipIndex.ownsSection(principal.getName(), secNo)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid section no");
+        }
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"section-"+secNo+"-gradebook.csv\"")
+                .body(out -> exportService.writeCsv(secNo, out));
+    }
 
     @PutMapping("/grades")
     @PreAuthorize("hasAuthority('SCOPE_ROLE_INSTRUCTOR')")
-    public void updateGrades(@Valid @RequestBody List<GradeDTO> dtoList, Principal principal) {
-        // update the assignment score
+    @Transactional
+    public ResponseEntity<List<GradeUpdateResultDTO>> updateGrades(@Valid @RequestBody List<GradeDTO> dtoList, Principal principal) {
+        // update the assignment scores
         // the user must be the instructor for the assignment's section
-        for (GradeDTO dto : dtoList ) {
-            Grade g = gradeRepository.findById(dto.gradeId()).orElse(null);
-            if (g==null || !g.getAssignment().getSection().getInstructorEmail().equals(principal.getName())) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid grade id "+dto.gradeId());
+        // every row is checked and reported.  Rows that pass are written with JDBC batch updates
+        // and the response status is 400 if any row was rejected.
+        List<Integer> gradeIds = dtoList.stream().map(GradeDTO::gradeId).distinct().toList();
+        Map<Integer, GradeRepository.GradeOwner> owners = new HashMap<>();
+        if (!gradeIds.isEmpty()) {
+            for (GradeRepository.GradeOwner o : gradeRepository.findOwnersByGradeIds(gradeIds)) {
+                owners.put(o.getGradeId(), o);
             }
-            g.setScore(dto.score());
-            gradeRepository.save(g);
         }
+        // the owners query gives the section of each grade, ownership is checked once per section
+        Map<Integer, Boolean> ownedSections = new HashMap<>();
+        List<GradeDTO> accepted = new ArrayList<>();
+        Set<Integer> changedAssignments = new HashSet<>();
+        List<GradeUpdateResultDTO> results = new ArrayList<>();
+        for (GradeDTO dto : dtoList) {
+            GradeRepository.GradeOwner o = owners.get(dto.gradeId());
+            String error = null;
+            if (o==null || !ownedSections.computeIfAbsent(o.getSectionNo(), k -> ownershipIndex.ownsSection(principal.getName(), k))) {
+                error = "invalid grade id "+dto.gradeId();
+            } else if (dto.score()!=null && (dto.score()<0 || dto.score()>100)) {
+                error = "invalid score "+dto.score()+" for grade id "+dto.gradeId();
+            } else {
+                accepted.add(dto);
+                changedAssignments.add(o.getAssignmentId());
+            }
+            results.add(new GradeUpdateResultDTO(dto.gradeId(), error==null, error));
+        }
+        if (!accepted.isEmpty()) {
+            gradeRepository.updateScores(accepted);
+            statsService.refreshAfterCommit(changedAssignments);
+        }
+        HttpStatus status = (accepted.size()==dtoList.size()) ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
+        return new ResponseEntity<>(results, status);
+    }
+
+    // import scores from a CSV file of studentEmail,assignmentId,score lines
+    // the user must be the instructor of each assignment's section.  Lines that fail are reported
+    // and the response status is 400 if any line failed.
+    @PostMapping(value = "/grades/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAuthority('SCOPE_ROLE_INSTRUCTOR')")
+    public ResponseEntity<GradeImportResultDTO> importGrades(@RequestParam("file") MultipartFile file, Principal principal) {
+        GradeImportResultDTO result;
+        try (InputStream in = file.getInputStream()) {
+            result = importService.importCsv(in, principal.getName());
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unable to read file");
+        }
+        HttpStatus status = result.errors().isEmpty() ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
+        return new ResponseEntity<>(result, status);
     }
 }
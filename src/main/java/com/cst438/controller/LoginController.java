@@ -1,31 +1,57 @@
 package com.cst438.controller;
 
-import com.cst438.domain.User;
-import com.cst438.domain.UserRepository;
 import com.cst438.dto.LoginDTO;
+import com.cst438.dto.RefreshDTO;
 import com.cst438.service.TokenService;
+import com.cst438.service.UserDirectory;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 public class LoginController {
 
 	private final TokenService tokenService;
-	private final UserRepository userRepository;
+	private final UserDirectory userDirectory;
 
-	public LoginController(TokenService tokenService, UserRepository userRepository) {
+	public LoginController(TokenService tokenService, UserDirectory userDirectory) {
 		this.tokenService = tokenService;
-		this.userRepository = userRepository;
+		this.userDirectory = userDirectory;
 	}
 
 	// generate JWT token containing user login email and role of STUDENT, ADMIN or INSTRUCTOR
+	// and a refresh token for getting new JWT tokens without the password
 	@GetMapping("/login")
 	public LoginDTO token(Authentication authentication) {
 		String name = authentication.getName();
-		User user = userRepository.findByEmail(name);
+		UserDirectory.Entry user = userDirectory.findByEmail(name);
 		String token = tokenService.generateToken(authentication);
-		return new LoginDTO(token, user.getType());
+		return new LoginDTO(token, user.type(), tokenService.generateRefreshToken(name));
+	}
+
+	// a new JWT token for a valid refresh token.  The role is read again so a changed or
+	// deleted user does not keep the old one.
+	@PostMapping("/login/refresh")
+	public LoginDTO refresh(@Valid @RequestBody RefreshDTO dto) {
+		String name;
+		try {
+			name = tokenService.verifyRefreshToken(dto.refreshToken());
+		} catch (JwtException e) {
+			throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid refresh token");
+		}
+		UserDirectory.Entry user = userDirectory.findByEmail(name);
+		if (user==null) {
+			throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid refresh token");
+		}
+		// same authority as UserDetailsServiceImpl gives at login
+		String token = tokenService.generateToken(name, "ROLE_" + user.type());
+		return new LoginDTO(token, user.type(), dto.refreshToken());
 	}
 
 }
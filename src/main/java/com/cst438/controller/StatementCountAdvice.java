@@ -0,0 +1,36 @@
+package com.cst438.controller;
+
+import com.cst438.metrics.StatementCountFilter;
+import com.cst438.metrics.StatementCounter;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// add the number of SQL statements run so far by the request to the response
+// before the body is written and the headers are sent
+@ControllerAdvice
+public class StatementCountAdvice implements ResponseBodyAdvice<Object> {
+
+    private final StatementCounter counter;
+
+    public StatementCountAdvice(StatementCounter counter) {
+        this.counter = counter;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        response.getHeaders().set(StatementCountFilter.HEADER, Integer.toString(counter.count()));
+        return body;
+    }
+}
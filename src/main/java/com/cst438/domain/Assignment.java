@@ -1,19 +1,24 @@
 package com.cst438.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.sql.Date;
 import java.text.SimpleDateFormat;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage=CacheConcurrencyStrategy.READ_WRITE)
 public class Assignment {
     @Id
-    @GeneratedValue(strategy=GenerationType.IDENTITY)
+    @GeneratedValue(strategy=GenerationType.SEQUENCE, generator="assignment_seq")
+    @SequenceGenerator(name="assignment_seq", sequenceName="assignment_seq", allocationSize=50)
     private int assignmentId;
     private String title;
     private Date dueDate;
-    @ManyToOne
+    @ManyToOne(fetch=FetchType.LAZY)
     @JoinColumn(name="section_no", nullable=false)
     private Section section;
 
@@ -10,4 +10,14 @@ public interface AssignmentRepository extends CrudRepository<Assignment, Integer
     List<Assignment> findByStudentEmailAndYearAndSemester(String email, int year, String semester);
 
     List<Assignment> findBySectionSectionNo(int secNo);
+
+    List<Assignment> findBySectionSectionNoOrderByDueDateAscAssignmentIdAsc(int secNo);
+
+    // [assignmentId, sectionNo] of every assignment, for OwnershipIndex
+    @Query("select a.assignmentId, a.section.sectionNo from Assignment a")
+    List<Object[]> findAllSectionNos();
+
+    // [sectionNo, instructorEmail] of the assignment's section, no rows if the assignment does not exist
+    @Query("select s.sectionNo, s.instructorEmail from Assignment a join a.section s where a.assignmentId=:assignmentId")
+    List<Object[]> findSectionNoAndInstructorEmail(int assignmentId);
 }
@@ -8,11 +8,11 @@ public class Enrollment {
     int enrollmentId;
     String grade;
 
-    @ManyToOne
+    @ManyToOne(fetch=FetchType.LAZY)
     @JoinColumn(name="section_no", nullable=false)
     private Section section;
 
-    @ManyToOne
+    @ManyToOne(fetch=FetchType.LAZY)
     @JoinColumn(name="user_id", nullable=false)
     private User student;
 
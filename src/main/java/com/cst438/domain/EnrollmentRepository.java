@@ -1,11 +1,25 @@
 package com.cst438.domain;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
-import java.util.List;
+import java.util.stream.Stream;
 
 public interface EnrollmentRepository extends CrudRepository<Enrollment, Integer> {
-    @Query("select e from Enrollment e where e.section.sectionNo=:sectionNo order by e.student.name")
-    List<Enrollment> findEnrollmentsBySectionNoOrderByStudentName(int sectionNo);
+    // one row per (student, assignment) of the section: [enrollmentId, student name, student email, assignmentId, score]
+    // ordered by student then due date.  A student of a section without assignments has one row with nulls.
+    // Rows are read through a cursor so the caller must consume the stream inside a transaction and close it.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e.enrollmentId, u.name, u.email, a.assignmentId, g.score " +
+            "from Enrollment e join e.student u left join Assignment a on a.section=e.section " +
+            "left join Grade g on g.enrollment=e and g.assignment=a " +
+            "where e.section.sectionNo=:secNo " +
+            "order by u.name, e.enrollmentId, a.dueDate, a.assignmentId")
+    Stream<Object[]> streamGradebookRows(int secNo);
 }
@@ -5,13 +5,14 @@ import jakarta.persistence.*;
 @Entity
 public class Grade {
     @Id
-    @GeneratedValue(strategy=GenerationType.IDENTITY)
+    @GeneratedValue(strategy=GenerationType.SEQUENCE, generator="grade_seq")
+    @SequenceGenerator(name="grade_seq", sequenceName="grade_seq", allocationSize=50)
     private int gradeId;
     private Integer score;
-    @ManyToOne
+    @ManyToOne(fetch=FetchType.LAZY)
     @JoinColumn(name="assignment_id", nullable=false)
     private Assignment assignment;
-    @ManyToOne
+    @ManyToOne(fetch=FetchType.LAZY)
     @JoinColumn(name="enrollment_id", nullable=false)
     private  Enrollment enrollment;
 
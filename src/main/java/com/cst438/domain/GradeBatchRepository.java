@@ -0,0 +1,23 @@
+package com.cst438.domain;
+
+import com.cst438.dto.GradeDTO;
+
+import java.util.List;
+
+/*
+ * JDBC batch operations on the grade table, mixed into GradeRepository.
+ * Callers are responsible for authorization and validation and must call these
+ * methods inside a transaction.
+ */
+public interface GradeBatchRepository {
+
+    // a grade row to insert, the grade id comes from grade_row_seq
+    record NewGrade(int enrollmentId, int assignmentId, Integer score) { }
+
+    // set grade.score for each gradeId.  returns the number of rows updated for each dto.
+    int[] updateScores(List<GradeDTO> grades);
+
+    // insert a grade row for each NewGrade.  The caller makes sure the rows do not exist yet,
+    // the unique (enrollment_id, assignment_id) key rejects the batch otherwise.
+    void insertScores(List<NewGrade> grades);
+}
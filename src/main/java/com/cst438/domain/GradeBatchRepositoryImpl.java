@@ -0,0 +1,59 @@
+package com.cst438.domain;
+
+import com.cst438.dto.GradeDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.List;
+
+public class GradeBatchRepositoryImpl implements GradeBatchRepository {
+
+    static final int BATCH_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GradeBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int[] updateScores(List<GradeDTO> grades) {
+        int[][] counts = jdbcTemplate.batchUpdate(
+                "update grade set score=? where grade_id=?",
+                grades,
+                BATCH_SIZE,
+                (ps, dto) -> {
+                    if (dto.score()==null) {
+                        ps.setNull(1, Types.INTEGER);
+                    } else {
+                        ps.setInt(1, dto.score());
+                    }
+                    ps.setInt(2, dto.gradeId());
+                });
+        int[] result = new int[grades.size()];
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                result[i++] = count;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void insertScores(List<NewGrade> grades) {
+        jdbcTemplate.batchUpdate(
+                "insert into grade (enrollment_id, assignment_id, score) values (?, ?, ?)",
+                grades,
+                BATCH_SIZE,
+                (ps, g) -> {
+                    ps.setInt(1, g.enrollmentId());
+                    ps.setInt(2, g.assignmentId());
+                    if (g.score()==null) {
+                        ps.setNull(3, Types.INTEGER);
+                    } else {
+                        ps.setInt(3, g.score());
+                    }
+                });
+    }
+}
@@ -1,10 +1,86 @@
 package com.cst438.domain;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface GradeRepository extends CrudRepository<Grade, Integer> {
+import java.util.Collection;
+import java.util.List;
+
+public interface GradeRepository extends CrudRepository<Grade, Integer>, GradeBatchRepository {
+
+    // the assignment a grade belongs to and the section of that assignment
+    interface GradeOwner {
+        int getGradeId();
+        int getAssignmentId();
+        int getSectionNo();
+    }
+
+    // an enrollment of a student in an assignment's section and the student's grade for it.
+    // gradeId and score are null when the grade row does not exist.
+    interface GradeTarget {
+        String getEmail();
+        int getAssignmentId();
+        int getEnrollmentId();
+        Integer getGradeId();
+        Integer getScore();
+    }
 
     @Query("select g from Grade g where g.assignment.assignmentId=:assignmentId and g.enrollment.student.email=:email")
     Grade findByStudentEmailAndAssignmentId(String email, int assignmentId);
+
+    @Query("select g.gradeId as gradeId, g.assignment.assignmentId as assignmentId, " +
+            "g.assignment.section.sectionNo as sectionNo from Grade g where g.gradeId in :gradeIds")
+    List<GradeOwner> findOwnersByGradeIds(Collection<Integer> gradeIds);
+
+    // every (student email, assignmentId) pair from the two lists where the student is enrolled
+    // in the assignment's section
+    @Query("select u.email as email, a.assignmentId as assignmentId, e.enrollmentId as enrollmentId, " +
+            "g.gradeId as gradeId, g.score as score " +
+            "from Assignment a join a.section s join s.enrollments e join e.student u " +
+            "left join Grade g on g.assignment=a and g.enrollment=e " +
+            "where a.assignmentId in :assignmentIds and u.email in :emails")
+    List<GradeTarget> findGradeTargets(Collection<Integer> assignmentIds, Collection<String> emails);
+
+    // assignmentId, score and number of grades with that score, for every graded score
+    @Query("select g.assignment.assignmentId, g.score, count(g) from Grade g where g.score is not null " +
+            "group by g.assignment.assignmentId, g.score")
+    List<Object[]> countScoresByAssignment();
+
+    // the same for the given assignments only
+    @Query("select g.assignment.assignmentId, g.score, count(g) from Grade g " +
+            "where g.score is not null and g.assignment.assignmentId in :assignmentIds " +
+            "group by g.assignment.assignmentId, g.score")
+    List<Object[]> countScoresByAssignmentIds(Collection<Integer> assignmentIds);
+
+    // the assignments that have graded scores of the given enrollments, of the enrollments of the
+    // given students or in the given sections.  Used to find the statistics a cascade delete changes.
+    @Query("select distinct g.assignment.assignmentId from Grade g " +
+            "where g.score is not null and g.enrollment.enrollmentId in :enrollmentIds")
+    List<Integer> findGradedAssignmentIdsByEnrollmentIds(Collection<Integer> enrollmentIds);
+
+    @Query("select distinct g.assignment.assignmentId from Grade g " +
+            "where g.score is not null and g.enrollment.student.id in :studentIds")
+    List<Integer> findGradedAssignmentIdsByStudentIds(Collection<Integer> studentIds);
+
+    @Query("select distinct g.assignment.assignmentId from Grade g " +
+            "where g.score is not null and g.assignment.section.sectionNo in :sectionNos")
+    List<Integer> findGradedAssignmentIdsBySectionNos(Collection<Integer> sectionNos);
+
+    // create Grade rows with a null score for every enrollment in the section that does not have one
+    // for the assignment.  This is a single insert ... select statement regardless of the roster size.
+    // Hibernate cannot tell which tables a native statement writes and would clear every
+    // second-level cache region; naming the grade table leaves the cached sections alone.
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "grade"))
+    @Query(nativeQuery = true, value = "insert into grade (enrollment_id, assignment_id, score) " +
+            "select e.enrollment_id, :assignmentId, null from enrollment e " +
+            "where e.section_no=:sectionNo " +
+            "and not exists (select 1 from grade g where g.enrollment_id=e.enrollment_id and g.assignment_id=:assignmentId)")
+    int createMissingGrades(int assignmentId, int sectionNo);
 }
@@ -0,0 +1,14 @@
+package com.cst438.domain;
+
+import java.sql.Timestamp;
+
+/*
+ * A row of the outbox_message table.
+ */
+public record OutboxMessage(
+        long id,
+        String queue,
+        String message,
+        Timestamp createdAt
+) {
+}
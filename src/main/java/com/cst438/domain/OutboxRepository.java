@@ -0,0 +1,61 @@
+package com.cst438.domain;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/*
+ * JDBC access to the outbox_message table.  add() joins the caller's transaction
+ * so the message is committed or rolled back together with the change it describes.
+ */
+@Repository
+public class OutboxRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void add(String queue, String message) {
+        jdbcTemplate.update("insert into outbox_message (queue, message, created_at) values (?, ?, ?)",
+                queue, message, new Timestamp(System.currentTimeMillis()));
+    }
+
+    // oldest messages first
+    public List<OutboxMessage> findOldest(int limit) {
+        return jdbcTemplate.query(
+                "select id, queue, message, created_at from outbox_message order by id limit ?",
+                (rs, i) -> new OutboxMessage(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getTimestamp(4)),
+                limit);
+    }
+
+    public void deleteByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("delete from outbox_message where id=?", ids, ids.size(),
+                (ps, id) -> ps.setLong(1, id));
+    }
+
+    // take or renew the relay lease in outbox_lease for leaseMs.  true if owner holds it.
+    // node clocks must agree to well within leaseMs.
+    public boolean acquireLease(String owner, long leaseMs) {
+        long now = System.currentTimeMillis();
+        return jdbcTemplate.update("update outbox_lease set owner=?, expires_at=? " +
+                        "where id=1 and (owner=? or expires_at<?)",
+                owner, new Timestamp(now + leaseMs), owner, new Timestamp(now)) == 1;
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from outbox_message", Long.class);
+        return (count==null) ? 0 : count;
+    }
+
+    // created_at of the oldest message or null if the outbox is empty
+    public Timestamp oldestCreatedAt() {
+        return jdbcTemplate.queryForObject("select min(created_at) from outbox_message", Timestamp.class);
+    }
+}
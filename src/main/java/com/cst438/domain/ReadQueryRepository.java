@@ -0,0 +1,100 @@
+package com.cst438.domain;
+
+import com.cst438.dto.AssignmentDTO;
+import com.cst438.dto.AssignmentStudentDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.GradeDTO;
+import com.cst438.dto.SectionDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/*
+ * Queries behind the GET endpoints.  Rows are built directly as DTO records by JPQL
+ * constructor expressions so no managed entities are created, and each query runs in a
+ * read-only transaction so Hibernate neither snapshots nor flushes anything.
+ */
+@Transactional(readOnly = true)
+public interface ReadQueryRepository extends Repository<Section, Integer> {
+
+    // instructor's sections for a term, joined with the instructor name
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.cst438.dto.SectionDTO(s.sectionNo, t.year, t.semester, c.courseId, c.title, " +
+            "s.sectionId, s.building, s.room, s.times, u.name, s.instructorEmail) " +
+            "from Section s join s.term t join s.course c join User u on u.email=s.instructorEmail " +
+            "where s.instructorEmail=:email and t.year=:year and t.semester=:semester " +
+            "order by c.courseId, s.sectionId")
+    List<SectionDTO> findSectionDTOsByInstructorEmailAndYearAndSemester(String email, int year, String semester);
+
+    // assignments of a section ordered by due date.  The due date is formatted yyyy-mm-dd by the database.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.cst438.dto.AssignmentDTO(a.assignmentId, a.title, cast(a.dueDate as String), " +
+            "c.courseId, s.sectionId, s.sectionNo) " +
+            "from Assignment a join a.section s join s.course c " +
+            "where s.sectionNo=:secNo " +
+            "order by a.dueDate, a.assignmentId")
+    List<AssignmentDTO> findAssignmentDTOsBySectionNo(int secNo);
+
+    // student's assignments for a term with the student's score (null if not graded), ordered by due date
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.cst438.dto.AssignmentStudentDTO(a.assignmentId, a.title, a.dueDate, c.courseId, s.sectionId, g.score) " +
+            "from Assignment a join a.section s join s.course c join s.term t join s.enrollments e " +
+            "left join Grade g on g.assignment=a and g.enrollment=e " +
+            "where e.student.email=:email and t.year=:year and t.semester=:semester " +
+            "order by a.dueDate, a.assignmentId")
+    List<AssignmentStudentDTO> findAssignmentStudentDTOsByStudentEmailAndYearAndSemester(String email, int year, String semester);
+
+    // the roster of a section ordered by student name
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.cst438.dto.EnrollmentDTO(e.enrollmentId, e.grade, u.id, u.name, u.email, " +
+            "c.courseId, c.title, s.sectionId, s.sectionNo, s.building, s.room, s.times, c.credits, t.year, t.semester) " +
+            "from Enrollment e join e.student u join e.section s join s.course c join s.term t " +
+            "where s.sectionNo=:sectionNo " +
+            "order by u.name")
+    List<EnrollmentDTO> findEnrollmentDTOsBySectionNo(int sectionNo);
+
+    // one row per student enrolled in the assignment's section, ordered by student name.
+    // gradeId is 0 for students that do not have a Grade row yet.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.cst438.dto.GradeDTO(coalesce(g.gradeId, 0), u.name, u.email, a.title, c.courseId, s.sectionId, g.score) " +
+            "from Assignment a join a.section s join s.course c join s.enrollments e join e.student u " +
+            "left join Grade g on g.assignment=a and g.enrollment=e " +
+            "where a.assignmentId=:assignmentId " +
+            "order by u.name, e.enrollmentId")
+    List<GradeDTO> findGradeSheetByAssignmentId(int assignmentId);
+
+    // one row per (student, assignment) of the section with the score if there is one:
+    // [enrollmentId, student name, student email, assignmentId, assignment title, score, instructorEmail]
+    // ordered by student then due date.  A section with no students or no assignments
+    // returns rows with nulls on that side; a section that does not exist returns no rows.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e.enrollmentId, u.name, u.email, a.assignmentId, a.title, g.score, s.instructorEmail " +
+            "from Section s left join s.enrollments e left join e.student u left join s.assignments a " +
+            "left join Grade g on g.enrollment=e and g.assignment=a " +
+            "where s.sectionNo=:secNo " +
+            "order by u.name, e.enrollmentId, a.dueDate, a.assignmentId")
+    List<Object[]> findGradebookCells(int secNo);
+}
@@ -1,31 +1,43 @@
 package com.cst438.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
+// associations are lazy.  Sections referenced by several enrollments or assignments, and
+// their enrollment and assignment lists, are initialized up to 50 at a time.
 @Entity
+@Cacheable
+@Cache(usage=CacheConcurrencyStrategy.READ_WRITE)
+@BatchSize(size=50)
 public class Section {
 
     @Id
     private int sectionNo;  // unique id assigned by database.
     private int sectionId;
-    @ManyToOne
+    @ManyToOne(fetch=FetchType.LAZY)
     @JoinColumn(name="course_id", nullable=false)
     private Course course;
     private String building;
     private String room;
     private String times;
     private String instructorEmail;
-    @ManyToOne
+    @ManyToOne(fetch=FetchType.LAZY)
     @JoinColumn(name="term_id", nullable=false)
     private Term term;
 
     @OneToMany(mappedBy="section")
+    @Cache(usage=CacheConcurrencyStrategy.READ_WRITE)
+    @BatchSize(size=50)
     List<Enrollment> enrollments;
 
     @OneToMany(mappedBy="section")
     @OrderBy("dueDate")
+    @Cache(usage=CacheConcurrencyStrategy.READ_WRITE)
+    @BatchSize(size=50)
     List<Assignment> assignments;
 
     public int getSectionNo() {
@@ -10,4 +10,11 @@ public interface SectionRepository extends CrudRepository<Section, Integer> {
             "where s.instructorEmail=:email and s.term.year=:year and s.term.semester=:semester " +
             "order by s.course.courseId, s.sectionId")
     List<Section> findByInstructorEmailAndYearAndSemester(String email, int year, String semester);
+
+    // [sectionNo, instructorEmail] of every section, for OwnershipIndex
+    @Query("select s.sectionNo, s.instructorEmail from Section s")
+    List<Object[]> findAllInstructorEmails();
+
+    @Query("select s.instructorEmail from Section s where s.sectionNo=:sectionNo")
+    String findInstructorEmailBySectionNo(int sectionNo);
 }
@@ -2,9 +2,12 @@ package com.cst438.domain;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
+// students of lazily loaded enrollments are initialized up to 50 at a time
 @Entity
 @Table(name="user_table")
+@BatchSize(size=50)
 public class User {
 	@Id
 	private int id;
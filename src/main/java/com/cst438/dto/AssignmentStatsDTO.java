@@ -0,0 +1,18 @@
+package com.cst438.dto;
+
+/*
+ * Data Transfer Object for the score statistics of an assignment.
+ * Only graded scores are counted.  mean, median, min and max are null when
+ * nothing is graded yet.  histogram[s] is the number of students with score s.
+ */
+public record AssignmentStatsDTO(
+        int assignmentId,
+        int count,
+        Double mean,
+        Double median,
+        Integer min,
+        Integer max,
+        int[] histogram
+) {
+
+}
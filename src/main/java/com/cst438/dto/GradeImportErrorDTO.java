@@ -0,0 +1,11 @@
+package com.cst438.dto;
+/*
+ * Data Transfer Object for a line of a grade import file that was not applied
+ * line is the 1-based line number in the file.
+ */
+public record GradeImportErrorDTO(
+        int line,
+        String error
+) {
+
+}
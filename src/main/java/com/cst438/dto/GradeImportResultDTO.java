@@ -0,0 +1,18 @@
+package com.cst438.dto;
+
+import java.util.List;
+
+/*
+ * Data Transfer Object for the result of POST /grades/import
+ * lines is the number of score lines read, updated the number of lines that changed an
+ * existing grade and created the number of grades that did not exist before.
+ * errors lists the lines that were not applied, in file order.
+ */
+public record GradeImportResultDTO(
+        int lines,
+        int updated,
+        int created,
+        List<GradeImportErrorDTO> errors
+) {
+
+}
@@ -0,0 +1,12 @@
+package com.cst438.dto;
+/*
+ * Data Transfer Object for the result of updating one score in PUT /grades
+ * error is null when the score was updated.
+ */
+public record GradeUpdateResultDTO(
+        int gradeId,
+        boolean updated,
+        String error
+) {
+
+}
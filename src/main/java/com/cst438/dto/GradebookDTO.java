@@ -0,0 +1,18 @@
+package com.cst438.dto;
+
+/*
+ * Data Transfer Object for all scores of a section.
+ * Students are rows ordered by name, assignments are columns ordered by due date.
+ * scores[i][j] is the score of student i for assignment j, or UNGRADED.
+ */
+public record GradebookDTO(
+        int secNo,
+        int[] assignmentIds,
+        String[] assignmentTitles,
+        int[] enrollmentIds,
+        String[] studentNames,
+        String[] studentEmails,
+        int[][] scores
+) {
+    public static final int UNGRADED = -1;
+}
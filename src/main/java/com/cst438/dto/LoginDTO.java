@@ -2,7 +2,8 @@ package com.cst438.dto;
 
 public record LoginDTO(
         String jwt,
-        String role) {
+        String role,
+        String refreshToken) {
 
 
 }
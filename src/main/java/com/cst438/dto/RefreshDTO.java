@@ -0,0 +1,7 @@
+package com.cst438.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshDTO(
+        @NotBlank(message="refreshToken is required") String refreshToken) {
+}
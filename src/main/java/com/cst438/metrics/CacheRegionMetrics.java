@@ -0,0 +1,47 @@
+package com.cst438.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/*
+ * Hit ratio of each hibernate second-level cache region as the gauge
+ * hibernate.cache.region.hit.ratio{region}.  Hits and misses per region are also published
+ * by hibernate-micrometer as hibernate.second.level.cache.requests.
+ */
+@Component
+public class CacheRegionMetrics {
+
+    private final Statistics statistics;
+    private final MeterRegistry registry;
+
+    public CacheRegionMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry registry) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.registry = registry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() {
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            Gauge.builder("hibernate.cache.region.hit.ratio", statistics, s -> hitRatio(s, region))
+                    .tag("region", region)
+                    .register(registry);
+        }
+    }
+
+    // NaN until the region has been used
+    static double hitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics s = statistics.getCacheRegionStatistics(region);
+        if (s == null) {
+            return Double.NaN;
+        }
+        long requests = s.getHitCount() + s.getMissCount();
+        return (requests == 0) ? Double.NaN : (double) s.getHitCount() / requests;
+    }
+}
@@ -0,0 +1,21 @@
+package com.cst438.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/*
+ * gradebook.statements.* settings for StatementCountFilter
+ * endpoints overrides the budget for an endpoint named by method and path pattern, e.g.
+ *   gradebook.statements.endpoints[PUT\ /grades]=6
+ */
+@ConfigurationProperties(prefix="gradebook.statements")
+public record StatementBudgetProperties(
+        @DefaultValue("10") int budget,             // SQL statements a request may run before a warning is logged
+        Map<String, Integer> endpoints
+) {
+    public int budgetFor(String endpoint) {
+        return (endpoints == null) ? budget : endpoints.getOrDefault(endpoint, budget);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cst438.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/*
+ * Count the SQL statements of each HTTP request.
+ * The count is sent in the X-SQL-Statement-Count response header (set by StatementCountAdvice
+ * before a body is written, or here for responses without a body), recorded in the
+ * gradebook.request.statements distribution per endpoint, and a warning is logged when an
+ * endpoint goes over its budget.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-SQL-Statement-Count";
+
+    private static final Logger log = LoggerFactory.getLogger(StatementCountFilter.class);
+
+    private final StatementCounter counter;
+    private final StatementBudgetProperties properties;
+    private final MeterRegistry registry;
+
+    public StatementCountFilter(StatementCounter counter, StatementBudgetProperties properties, MeterRegistry registry) {
+        this.counter = counter;
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        counter.start();
+        int count;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            count = counter.stop();
+        }
+        if (!response.isCommitted()) {
+            response.setHeader(HEADER, Integer.toString(count));
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern == null ? "UNKNOWN" : pattern);
+        DistributionSummary.builder("gradebook.request.statements")
+                .description("SQL statements run by an HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .register(registry)
+                .record(count);
+        int budget = properties.budgetFor(endpoint);
+        if (count > budget) {
+            log.warn("{} ran {} SQL statements, budget is {}", endpoint, count, budget);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.cst438.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+ * Counts the SQL statements sent to the database on the current thread between start() and stop().
+ * The DataSource bean is wrapped, so statements run by hibernate, JdbcTemplate and plain JDBC are
+ * all counted.  Each execute call is one statement, and so is each executeBatch however many rows
+ * the batch holds.
+ */
+@Component
+public class StatementCounter implements BeanPostProcessor {
+
+    private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    public void start() {
+        count.set(new int[1]);
+    }
+
+    // statements counted so far on this thread, 0 if counting was not started
+    public int count() {
+        int[] c = count.get();
+        return (c == null) ? 0 : c[0];
+    }
+
+    public int stop() {
+        int n = count();
+        count.remove();
+        return n;
+    }
+
+    private void increment() {
+        int[] c = count.get();
+        if (c != null) {
+            c[0]++;
+        }
+    }
+
+    // a connection proxy hands out statement proxies, a statement proxy counts its execute calls
+    private Object proxy(Class<?> type, Object target) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (target instanceof Statement && method.getName().startsWith("execute")) {
+                increment();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (target instanceof Connection && result instanceof Statement) {
+                return proxy(method.getReturnType(), result);
+            }
+            return result;
+        });
+    }
+
+    private class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return (Connection) proxy(Connection.class, super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return (Connection) proxy(Connection.class, super.getConnection(username, password));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.cst438.service;
+
+import com.cst438.domain.GradeRepository;
+import com.cst438.dto.AssignmentStatsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Score statistics per assignment kept in memory as histograms, so reading the statistics
+ * of an assignment does not touch the grade table.
+ * The histograms are built from the grade table at startup.  When a transaction that changed
+ * scores commits, the histograms of the assignments it touched are read again from the grade
+ * table with one grouped query.  Reading committed rows instead of applying old/new deltas
+ * keeps the histograms exact when two requests change the same grade at the same time.
+ * Grades removed by the database (cascade delete of an enrollment, user or section sent by
+ * the registrar) are handled the same way: the registrar batch finds the assignments of those
+ * grades before it deletes them and refreshes only those assignments after it commits.
+ * Rebuilds and refreshes hold one lock from their query until the histograms are replaced,
+ * so a histogram is never replaced by an older read.
+ */
+@Service
+public class AssignmentStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentStatsService.class);
+
+    private final GradeRepository gradeRepository;
+    private final Object lock = new Object();
+    // replaced by rebuild, changed by refresh, both with lock held
+    private volatile Map<Integer, ScoreHistogram> histograms = new ConcurrentHashMap<>();
+
+    public AssignmentStatsService(GradeRepository gradeRepository) {
+        this.gradeRepository = gradeRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (lock) {
+            // one row per assignment and score: assignmentId, score, number of grades
+            histograms = histograms(gradeRepository.countScoresByAssignment());
+        }
+        log.info("Score statistics built for {} assignments", histograms.size());
+    }
+
+    // read the histograms of the assignments from the grade table
+    public void refresh(Collection<Integer> assignmentIds) {
+        if (assignmentIds.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            Map<Integer, ScoreHistogram> fresh = histograms(gradeRepository.countScoresByAssignmentIds(assignmentIds));
+            for (Integer id : assignmentIds) {
+                ScoreHistogram h = fresh.get(id);
+                if (h == null) {
+                    histograms.remove(id);
+                } else {
+                    histograms.put(id, h);
+                }
+            }
+        }
+    }
+
+    public AssignmentStatsDTO getStats(int assignmentId) {
+        ScoreHistogram h = histograms.get(assignmentId);
+        return (h == null) ? new ScoreHistogram().toDTO(assignmentId) : h.toDTO(assignmentId);
+    }
+
+    // refresh the assignments when the current transaction commits
+    public void refreshAfterCommit(Collection<Integer> assignmentIds) {
+        Set<Integer> ids = new HashSet<>(assignmentIds);
+        afterCommit(() -> refresh(ids));
+    }
+
+    public void removeAfterCommit(int assignmentId) {
+        afterCommit(() -> {
+            synchronized (lock) {
+                histograms.remove(assignmentId);
+            }
+        });
+    }
+
+    private static Map<Integer, ScoreHistogram> histograms(List<Object[]> rows) {
+        Map<Integer, ScoreHistogram> result = new ConcurrentHashMap<>();
+        for (Object[] row : rows) {
+            result.computeIfAbsent((Integer) row[0], k -> new ScoreHistogram())
+                    .add((Integer) row[1], ((Long) row[2]).intValue());
+        }
+        return result;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
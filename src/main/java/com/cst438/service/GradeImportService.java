@@ -0,0 +1,225 @@
+package com.cst438.service;
+
+import com.cst438.domain.GradeBatchRepository.NewGrade;
+import com.cst438.domain.GradeRepository;
+import com.cst438.dto.GradeDTO;
+import com.cst438.dto.GradeImportErrorDTO;
+import com.cst438.dto.GradeImportResultDTO;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Import scores from a CSV file with lines  studentEmail,assignmentId,score
+ * An empty score clears the grade.  A first line starting with studentEmail is a header.
+ * The file is read as a stream in chunks of CHUNK_SIZE lines.  For each chunk the grade rows
+ * are found with one query and scores are written with JDBC batch updates and inserts, so the
+ * number of statements depends on the number of chunks and not on the number of lines.
+ * Assignments are authorized with OwnershipIndex, the same check PUT /grades uses.
+ * Lines that can not be applied are reported and the rest of the file is imported.
+ * When the same student and assignment appear more than once the last line wins.
+ */
+@Service
+public class GradeImportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private final GradeRepository gradeRepository;
+    private final OwnershipIndex ownershipIndex;
+    private final AssignmentStatsService statsService;
+
+    public GradeImportService(
+            GradeRepository gradeRepository,
+            OwnershipIndex ownershipIndex,
+            AssignmentStatsService statsService
+    ) {
+        this.gradeRepository = gradeRepository;
+        this.ownershipIndex = ownershipIndex;
+        this.statsService = statsService;
+    }
+
+    // a parsed score line
+    private record ScoreLine(int line, String email, int assignmentId, Integer score) { }
+
+    // state of one import
+    private static class Import {
+        final String instructorEmail;
+        // assignments seen so far and whether they belong to the instructor
+        final Map<Integer, Boolean> owned = new HashMap<>();
+        // assignments with a score written, their statistics are refreshed after commit
+        final Set<Integer> changedAssignments = new HashSet<>();
+        final List<GradeImportErrorDTO> errors = new ArrayList<>();
+        int lines;
+        int updated;
+        int created;
+
+        Import(String instructorEmail) {
+            this.instructorEmail = instructorEmail;
+        }
+    }
+
+    @Transactional
+    public GradeImportResultDTO importCsv(InputStream in, String instructorEmail) throws IOException {
+        Import imp = new Import(instructorEmail);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<ScoreLine> chunk = new ArrayList<>();
+        String text;
+        int lineNo = 0;
+        while ((text = reader.readLine()) != null) {
+            lineNo++;
+            if (lineNo == 1 && text.startsWith("\uFEFF")) {
+                text = text.substring(1);
+            }
+            if (text.isBlank() || (lineNo == 1 && text.trim().toLowerCase().startsWith("studentemail"))) {
+                continue;
+            }
+            imp.lines++;
+            ScoreLine line = parse(lineNo, text, imp);
+            if (line != null) {
+                chunk.add(line);
+                if (chunk.size() == CHUNK_SIZE) {
+                    apply(chunk, imp);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            apply(chunk, imp);
+        }
+        statsService.refreshAfterCommit(imp.changedAssignments);
+        imp.errors.sort(Comparator.comparingInt(GradeImportErrorDTO::line));
+        return new GradeImportResultDTO(imp.lines, imp.updated, imp.created, imp.errors);
+    }
+
+    private ScoreLine parse(int lineNo, String text, Import imp) {
+        List<String> fields = splitCsv(text);
+        if (fields.size() != 3) {
+            imp.errors.add(new GradeImportErrorDTO(lineNo, "expected studentEmail,assignmentId,score"));
+            return null;
+        }
+        String email = fields.get(0).trim();
+        int assignmentId;
+        Integer score = null;
+        try {
+            assignmentId = Integer.parseInt(fields.get(1).trim());
+        } catch (NumberFormatException e) {
+            imp.errors.add(new GradeImportErrorDTO(lineNo, "invalid assignment id "+fields.get(1)));
+            return null;
+        }
+        String s = fields.get(2).trim();
+        if (!s.isEmpty()) {
+            try {
+                score = Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                score = -1;
+            }
+            if (score < 0 || score > 100) {
+                imp.errors.add(new GradeImportErrorDTO(lineNo, "invalid score "+s));
+                return null;
+            }
+        }
+        return new ScoreLine(lineNo, email, assignmentId, score);
+    }
+
+    private void apply(List<ScoreLine> chunk, Import imp) {
+        // ownership of assignments not seen in earlier chunks, checked like PUT /grades
+        for (ScoreLine l : chunk) {
+            imp.owned.computeIfAbsent(l.assignmentId(), id -> ownershipIndex.ownsAssignment(imp.instructorEmail, id));
+        }
+
+        Set<Integer> assignmentIds = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (ScoreLine l : chunk) {
+            if (imp.owned.get(l.assignmentId())) {
+                assignmentIds.add(l.assignmentId());
+                emails.add(l.email());
+            }
+        }
+        Map<String, GradeRepository.GradeTarget> targets = new HashMap<>();
+        if (!assignmentIds.isEmpty()) {
+            for (GradeRepository.GradeTarget t : gradeRepository.findGradeTargets(assignmentIds, emails)) {
+                targets.put(key(t.getEmail(), t.getAssignmentId()), t);
+            }
+        }
+
+        List<GradeDTO> updates = new ArrayList<>();
+        // grade rows to create, one per enrollment and assignment
+        Map<String, NewGrade> inserts = new LinkedHashMap<>();
+        for (ScoreLine l : chunk) {
+            if (!imp.owned.get(l.assignmentId())) {
+                imp.errors.add(new GradeImportErrorDTO(l.line(), "invalid assignment id "+l.assignmentId()));
+                continue;
+            }
+            String key = key(l.email(), l.assignmentId());
+            GradeRepository.GradeTarget t = targets.get(key);
+            if (t == null) {
+                imp.errors.add(new GradeImportErrorDTO(l.line(),
+                        l.email()+" is not enrolled in the section of assignment "+l.assignmentId()));
+                continue;
+            }
+            imp.changedAssignments.add(l.assignmentId());
+            if (t.getGradeId() != null) {
+                updates.add(new GradeDTO(t.getGradeId(), null, l.email(), null, null, 0, l.score()));
+                imp.updated++;
+            } else {
+                NewGrade previous = inserts.put(key, new NewGrade(t.getEnrollmentId(), l.assignmentId(), l.score()));
+                if (previous == null) {
+                    imp.created++;
+                }
+            }
+        }
+        if (!updates.isEmpty()) {
+            gradeRepository.updateScores(updates);
+        }
+        if (!inserts.isEmpty()) {
+            // rows inserted here are found as existing grades by the following chunks
+            gradeRepository.insertScores(new ArrayList<>(inserts.values()));
+        }
+    }
+
+    private static String key(String email, int assignmentId) {
+        return assignmentId + " " + email;
+    }
+
+    // split a CSV line, fields may be quoted with "" for a quote inside a quoted field
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
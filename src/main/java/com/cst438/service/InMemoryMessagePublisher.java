@@ -0,0 +1,47 @@
+package com.cst438.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+ * Stand-in for RabbitMQ when running offline or in tests (registrar.broker=in-memory).
+ * Messages are kept per queue and every publish is confirmed immediately.
+ */
+@Service
+@ConditionalOnProperty(name="registrar.broker", havingValue="in-memory")
+public class InMemoryMessagePublisher implements MessagePublisher {
+
+    private final Map<String, ConcurrentLinkedQueue<String>> queues = new ConcurrentHashMap<>();
+
+    @Override
+    public CompletableFuture<Boolean> publish(String queue, String message) {
+        queues.computeIfAbsent(queue, q -> new ConcurrentLinkedQueue<>()).add(message);
+        return CompletableFuture.completedFuture(true);
+    }
+
+    // messages published to the queue, oldest first
+    public List<String> getMessages(String queue) {
+        ConcurrentLinkedQueue<String> q = queues.get(queue);
+        return (q==null) ? List.of() : new ArrayList<>(q);
+    }
+
+    // remove and return the messages published to the queue
+    public List<String> drain(String queue) {
+        List<String> result = new ArrayList<>();
+        ConcurrentLinkedQueue<String> q = queues.get(queue);
+        if (q!=null) {
+            String msg;
+            while ((msg = q.poll()) != null) {
+                result.add(msg);
+            }
+        }
+        return result;
+    }
+}
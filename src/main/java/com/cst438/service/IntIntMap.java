@@ -0,0 +1,103 @@
+package com.cst438.service;
+
+import java.util.Arrays;
+
+/*
+ * Open addressing hash map from int to int without boxing, for OwnershipIndex.
+ * Keys must be >= 0.  Not thread safe.
+ */
+class IntIntMap {
+
+    static final int MISSING = -1;
+    private static final int FREE = -1;
+    private static final int REMOVED = -2;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int used;  // size plus removed slots
+
+    IntIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == FREE) {
+                return MISSING;
+            }
+        }
+    }
+
+    void put(int key, int value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("negative key " + key);
+        }
+        if ((used + 1) * 2 > keys.length) {
+            rehash(size * 4 > keys.length ? keys.length * 2 : keys.length);
+        }
+        int mask = keys.length - 1;
+        int slot = -1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            if (keys[i] == REMOVED && slot < 0) {
+                slot = i;
+            }
+            if (keys[i] == FREE) {
+                if (slot < 0) {
+                    slot = i;
+                    used++;
+                }
+                break;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    void remove(int key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                keys[i] = REMOVED;
+                size--;
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        used = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] >= 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
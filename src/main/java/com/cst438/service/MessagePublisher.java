@@ -0,0 +1,12 @@
+package com.cst438.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * Publishes a message to a queue.  The returned future completes with true when
+ * the broker has confirmed the message and false when the broker rejected it.
+ */
+public interface MessagePublisher {
+
+    CompletableFuture<Boolean> publish(String queue, String message);
+}
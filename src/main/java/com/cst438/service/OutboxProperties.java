@@ -0,0 +1,17 @@
+package com.cst438.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+ * registrar.outbox.* settings for OutboxRelay
+ */
+@ConfigurationProperties(prefix="registrar.outbox")
+public record OutboxProperties(
+        @DefaultValue("true") boolean relayEnabled,   // run the relay on this node
+        @DefaultValue("100") int batchSize,           // messages read and published per round
+        @DefaultValue("5000") long sweepIntervalMs,   // poll interval when no commit wakes the relay
+        @DefaultValue("10000") long confirmTimeoutMs, // wait for the broker to confirm a batch before retrying the rest
+        @DefaultValue("30000") long leaseMs           // relay lease length, at least 3 x confirmTimeoutMs
+) {
+}
@@ -0,0 +1,178 @@
+package com.cst438.service;
+
+import com.cst438.domain.OutboxMessage;
+import com.cst438.domain.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Background relay from the outbox_message table to the broker.
+ * Messages are read in id order in batches.  The whole batch is published in order without
+ * waiting, then the confirms are checked in the same order: the messages before the first one
+ * that is rejected or not confirmed within confirmTimeoutMs are deleted, that message and
+ * everything after it stay in the outbox and are published again, in order, in the next round.
+ * Messages after a rejected one may already have reached the broker, so the registrar can see
+ * a tail of the batch twice, but the last copy of every message arrives in outbox order.
+ * Delivery is at least once: a crash before the delete, or a confirm that times out after the
+ * broker took the message, sends it again.
+ * The relay is woken when a transaction that wrote to the outbox commits and also polls every
+ * sweepIntervalMs to pick up messages left by failures.
+ *
+ * Every node may run the relay.  It only publishes while it holds the lease row in
+ * outbox_lease, renewed every leaseMs/3, so one node at a time relays the outbox and another
+ * takes over within leaseMs when that node stops.
+ *
+ * metrics
+ *   registrar.outbox.published   messages confirmed by the broker (rate is throughput)
+ *   registrar.outbox.failed      publish attempts that were rejected or timed out
+ *   registrar.outbox.pending     messages waiting in the outbox
+ *   registrar.outbox.lag         age in seconds of the oldest waiting message
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final MessagePublisher publisher;
+    private final OutboxProperties properties;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final Counter published;
+    private final Counter failed;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final String owner = "relay-" + UUID.randomUUID();
+    // when the lease is next renewed, 0 if this node does not hold it.  relay thread only.
+    private long renewLeaseAt;
+    private volatile Thread worker;
+
+    public OutboxRelay(
+            OutboxRepository outboxRepository,
+            MessagePublisher publisher,
+            OutboxProperties properties,
+            MeterRegistry registry
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.publisher = publisher;
+        this.properties = properties;
+        this.published = registry.counter("registrar.outbox.published");
+        this.failed = registry.counter("registrar.outbox.failed");
+        Gauge.builder("registrar.outbox.pending", pending, AtomicLong::get).register(registry);
+        Gauge.builder("registrar.outbox.lag", lagMillis, l -> l.get() / 1000.0)
+                .baseUnit("seconds").register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.relayEnabled()) {
+            return;
+        }
+        worker = new Thread(this::run, "outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread t = worker;
+        worker = null;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    // called after a transaction that wrote to the outbox commits
+    public void wakeUp() {
+        wakeUp.release();
+    }
+
+    private void run() {
+        while (worker == Thread.currentThread()) {
+            try {
+                wakeUp.tryAcquire(properties.sweepIntervalMs(), TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+                // keep going while batches come back full
+                while (relayBatch() == properties.batchSize()) {
+                    // next batch
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.error("outbox relay failed", e);
+            }
+        }
+    }
+
+    // publish one batch and delete the messages the broker confirmed, up to the first one it did
+    // not confirm so that messages are not reordered.  returns the number of messages delivered.
+    int relayBatch() throws InterruptedException {
+        if (!holdLease()) {
+            return 0;
+        }
+        List<OutboxMessage> batch = outboxRepository.findOldest(properties.batchSize());
+        List<CompletableFuture<Boolean>> confirms = new ArrayList<>(batch.size());
+        for (OutboxMessage m : batch) {
+            confirms.add(publisher.publish(m.queue(), m.message()));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.confirmTimeoutMs());
+        List<Long> delivered = new ArrayList<>(batch.size());
+        for (int i=0; i<batch.size(); i++) {
+            boolean ack;
+            try {
+                ack = confirms.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                ack = false;
+            }
+            if (!ack) {
+                failed.increment();
+                log.warn("outbox message {} not confirmed, will retry with the {} messages after it",
+                        batch.get(i).id(), batch.size() - i - 1);
+                break;
+            }
+            delivered.add(batch.get(i).id());
+        }
+        outboxRepository.deleteByIds(delivered);
+        published.increment(delivered.size());
+        updateLag();
+        return delivered.size();
+    }
+
+    // true if this node holds the relay lease, renewing it when due
+    private boolean holdLease() {
+        long now = System.currentTimeMillis();
+        if (renewLeaseAt != 0 && now < renewLeaseAt) {
+            return true;
+        }
+        if (outboxRepository.acquireLease(owner, properties.leaseMs())) {
+            renewLeaseAt = now + properties.leaseMs() / 3;
+            return true;
+        }
+        renewLeaseAt = 0;
+        return false;
+    }
+
+    private void updateLag() {
+        pending.set(outboxRepository.count());
+        Timestamp oldest = outboxRepository.oldestCreatedAt();
+        lagMillis.set((oldest==null) ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getTime()));
+    }
+}
@@ -0,0 +1,309 @@
+package com.cst438.service;
+
+import com.cst438.domain.AssignmentRepository;
+import com.cst438.domain.SectionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Which instructor owns which section and which section each assignment belongs to,
+ * kept in memory so the authorization checks of instructor endpoints do not touch the
+ * database.
+ *
+ * Each instructor maps to a sorted int[] of section numbers and assignments map to their
+ * section in an IntIntMap.  The index is built at startup and kept current by registrar
+ * section messages (RegistrarMessageApplier) and by assignment create and delete
+ * (AssignmentController), after their transaction commits.  A section or assignment that is
+ * not in the index, such as rows written directly to the database, is looked up once and
+ * then remembered unless the index changed while it was being read.
+ *
+ * With several gradebook nodes, registrar messages reach only the active consumer of
+ * gradebook_service and an assignment change only the node that served the request.  The
+ * other nodes pick the change up when the index is rebuilt, every rebuildInterval (60s by
+ * default): until then an instructor who lost a section still passes the ownership check
+ * there.  Assignments created on another node are found by the lookup above.
+ */
+@Service
+public class OwnershipIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(OwnershipIndex.class);
+    private static final int[] NONE = new int[0];
+
+    private final SectionRepository sectionRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final long rebuildIntervalMs;
+    private final ScheduledExecutorService rebuilder;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // guarded by lock
+    private final Map<String, int[]> sectionsByInstructor = new HashMap<>();
+    private final Map<Integer, String> instructorBySection = new HashMap<>();
+    private IntIntMap sectionByAssignment = new IntIntMap(16);
+    // counts changes to the index.  A row read from the database is only stored if
+    // nothing changed while it was read.
+    private long generation;
+
+    public OwnershipIndex(SectionRepository sectionRepository, AssignmentRepository assignmentRepository,
+                          OwnershipIndexProperties properties) {
+        this.sectionRepository = sectionRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.rebuildIntervalMs = properties.rebuildInterval().toMillis();
+        rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ownership-rebuild");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        lock.readLock().lock();
+        try {
+            log.info("Ownership index built for {} sections and {} assignments", instructorBySection.size(), sectionByAssignment.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (rebuildIntervalMs > 0) {
+            rebuilder.scheduleWithFixedDelay(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.warn("Ownership index rebuild failed: {}", e.getMessage());
+                }
+            }, rebuildIntervalMs, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    public void rebuild() {
+        for (int attempt = 1; ; attempt++) {
+            long readGeneration = generation();
+            // [sectionNo, instructorEmail] and [assignmentId, sectionNo]
+            List<Object[]> sections = sectionRepository.findAllInstructorEmails();
+            List<Object[]> assignments = assignmentRepository.findAllSectionNos();
+            lock.writeLock().lock();
+            try {
+                // a change applied while the rows were read may be missing from them, read again
+                if (generation != readGeneration && attempt < 3) {
+                    continue;
+                }
+                generation++;
+                sectionsByInstructor.clear();
+                instructorBySection.clear();
+                for (Object[] row : sections) {
+                    putSection((Integer) row[0], (String) row[1]);
+                }
+                sectionByAssignment = new IntIntMap(assignments.size());
+                for (Object[] row : assignments) {
+                    sectionByAssignment.put((Integer) row[0], (Integer) row[1]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Ownership index rebuilt for {} sections and {} assignments", sections.size(), assignments.size());
+            return;
+        }
+    }
+
+    public boolean ownsSection(String instructorEmail, int sectionNo) {
+        long readGeneration;
+        lock.readLock().lock();
+        try {
+            readGeneration = generation;
+            int[] owned = sectionsByInstructor.getOrDefault(instructorEmail, NONE);
+            if (Arrays.binarySearch(owned, sectionNo) >= 0) {
+                return true;
+            }
+            if (instructorBySection.containsKey(sectionNo)) {
+                return false;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // not in the index
+        String owner = sectionRepository.findInstructorEmailBySectionNo(sectionNo);
+        if (owner == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (generation == readGeneration) {
+                removeSection(sectionNo);
+                putSection(sectionNo, owner);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return owner.equals(instructorEmail);
+    }
+
+    // the section of the assignment if the instructor owns it, otherwise -1
+    public int ownedSectionOfAssignment(String instructorEmail, int assignmentId) {
+        int sectionNo;
+        long readGeneration;
+        lock.readLock().lock();
+        try {
+            readGeneration = generation;
+            sectionNo = sectionByAssignment.get(assignmentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (sectionNo == IntIntMap.MISSING) {
+            // not in the index: [sectionNo, instructorEmail] of the assignment
+            List<Object[]> rows = assignmentRepository.findSectionNoAndInstructorEmail(assignmentId);
+            if (rows.isEmpty()) {
+                return -1;
+            }
+            sectionNo = (Integer) rows.get(0)[0];
+            lock.writeLock().lock();
+            try {
+                // not stored if the assignment or its section changed while it was read
+                if (generation == readGeneration) {
+                    sectionByAssignment.put(assignmentId, sectionNo);
+                    if (!instructorBySection.containsKey(sectionNo)) {
+                        putSection(sectionNo, (String) rows.get(0)[1]);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return ownsSection(instructorEmail, sectionNo) ? sectionNo : -1;
+    }
+
+    public boolean ownsAssignment(String instructorEmail, int assignmentId) {
+        return ownedSectionOfAssignment(instructorEmail, assignmentId) >= 0;
+    }
+
+    public void sectionChangedAfterCommit(int sectionNo, String instructorEmail) {
+        afterCommit(() -> sectionChanged(sectionNo, instructorEmail));
+    }
+
+    public void sectionRemovedAfterCommit(int sectionNo) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                generation++;
+                removeSection(sectionNo);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void assignmentAddedAfterCommit(int assignmentId, int sectionNo) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                generation++;
+                sectionByAssignment.put(assignmentId, sectionNo);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void assignmentRemovedAfterCommit(int assignmentId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                generation++;
+                sectionByAssignment.remove(assignmentId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void sectionChanged(int sectionNo, String instructorEmail) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            removeSection(sectionNo);
+            putSection(sectionNo, instructorEmail);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long generation() {
+        lock.readLock().lock();
+        try {
+            return generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // called with the write lock held
+    private void putSection(int sectionNo, String instructorEmail) {
+        if (instructorEmail == null) {
+            return;
+        }
+        instructorBySection.put(sectionNo, instructorEmail);
+        int[] owned = sectionsByInstructor.getOrDefault(instructorEmail, NONE);
+        int i = Arrays.binarySearch(owned, sectionNo);
+        if (i < 0) {
+            int at = -i - 1;
+            int[] grown = new int[owned.length + 1];
+            System.arraycopy(owned, 0, grown, 0, at);
+            grown[at] = sectionNo;
+            System.arraycopy(owned, at, grown, at + 1, owned.length - at);
+            sectionsByInstructor.put(instructorEmail, grown);
+        }
+    }
+
+    // called with the write lock held
+    private void removeSection(int sectionNo) {
+        String instructorEmail = instructorBySection.remove(sectionNo);
+        if (instructorEmail == null) {
+            return;
+        }
+        int[] owned = sectionsByInstructor.getOrDefault(instructorEmail, NONE);
+        int i = Arrays.binarySearch(owned, sectionNo);
+        if (i >= 0) {
+            int[] shrunk = new int[owned.length - 1];
+            System.arraycopy(owned, 0, shrunk, 0, i);
+            System.arraycopy(owned, i + 1, shrunk, i, owned.length - i - 1);
+            if (shrunk.length == 0) {
+                sectionsByInstructor.remove(instructorEmail);
+            } else {
+                sectionsByInstructor.put(instructorEmail, shrunk);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
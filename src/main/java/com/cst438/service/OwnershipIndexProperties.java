@@ -0,0 +1,15 @@
+package com.cst438.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/*
+ * gradebook.ownership.* settings for OwnershipIndex
+ */
+@ConfigurationProperties(prefix="gradebook.ownership")
+public record OwnershipIndexProperties(
+        @DefaultValue("60s") Duration rebuildInterval   // rebuild from the database this often, 0 for never
+) {
+}
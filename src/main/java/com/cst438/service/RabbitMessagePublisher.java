@@ -0,0 +1,36 @@
+package com.cst438.service;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * Publish to RabbitMQ with publisher confirms.  Requires
+ * spring.rabbitmq.publisher-confirm-type=correlated so that the broker ack
+ * completes the CorrelationData future on the connection thread, not the caller.
+ */
+@Service
+@ConditionalOnProperty(name="registrar.broker", havingValue="rabbit", matchIfMissing=true)
+public class RabbitMessagePublisher implements MessagePublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    public RabbitMessagePublisher(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> publish(String queue, String message) {
+        CorrelationData correlationData = new CorrelationData();
+        try {
+            rabbitTemplate.convertAndSend(queue, message, correlationData);
+        } catch (AmqpException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return correlationData.getFuture().thenApply(CorrelationData.Confirm::isAck);
+    }
+}
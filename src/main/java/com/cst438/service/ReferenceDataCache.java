@@ -0,0 +1,73 @@
+package com.cst438.service;
+
+import com.cst438.domain.Course;
+import com.cst438.domain.Section;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * Evictions from the hibernate second-level cache of Term, Course, Section and Assignment
+ * and of the Section.enrollments and Section.assignments collections (regions in ehcache.xml).
+ *
+ * Hibernate keeps the cache current for changes made through entities.  It does not see rows
+ * the database removes on its own, such as the enrollments of a deleted user, so the writers
+ * of reference data evict what they touched once their transaction commits.
+ */
+@Service
+public class ReferenceDataCache {
+
+    public static final String SECTION_ENROLLMENTS = Section.class.getName() + ".enrollments";
+    public static final String SECTION_ASSIGNMENTS = Section.class.getName() + ".assignments";
+
+    private final Cache cache;
+
+    public ReferenceDataCache(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    public void evictCourseAfterCommit(String courseId) {
+        afterCommit(() -> cache.evictEntityData(Course.class, courseId));
+    }
+
+    // the section and its enrollment and assignment lists
+    public void evictSectionAfterCommit(int secNo) {
+        afterCommit(() -> {
+            cache.evictEntityData(Section.class, secNo);
+            cache.evictCollectionData(SECTION_ENROLLMENTS, secNo);
+            cache.evictCollectionData(SECTION_ASSIGNMENTS, secNo);
+        });
+    }
+
+    public void evictEnrollmentsAfterCommit(int secNo) {
+        afterCommit(() -> cache.evictCollectionData(SECTION_ENROLLMENTS, secNo));
+    }
+
+    // every section's enrollment list, for deletes the database cascades
+    public void evictAllEnrollmentsAfterCommit() {
+        afterCommit(() -> cache.evictCollectionData(SECTION_ENROLLMENTS));
+    }
+
+    public void evictAssignmentsAfterCommit(int secNo) {
+        afterCommit(() -> cache.evictCollectionData(SECTION_ASSIGNMENTS, secNo));
+    }
+
+    public void evictAll() {
+        cache.evictAllRegions();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.cst438.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Apply a batch of registrar messages on N worker lanes.
+ *
+ * A message goes to the lane chosen by the hash of its entity key, and each lane is a
+ * single thread, so messages for the same section, user or enrollment are applied in the
+ * order they arrived while different entities are applied in parallel.
+ *
+ * The batch is first cut into segments so that a message never runs ahead of a message
+ * it depends on: an addEnrollment starts a new segment if its user or section was changed
+ * earlier in the current segment, and deletes of courses, sections and users form a
+ * segment of their own.  Segments are applied one after another.  A registration-day
+ * burst of addEnrollment messages is a single segment and uses all lanes.
+ *
+ * apply() returns when the whole batch is applied, so the listener acks the batch only
+ * after it is in the database and the next batch cannot overtake it.  Across several
+ * gradebook nodes order is kept by declaring gradebook_service with single active
+ * consumer (registrar.listener.single-active-consumer=true); the other nodes take over
+ * if the active one goes away.
+ *
+ * Metrics: registrar.messages.received, .invalid, .applied and .failed count messages,
+ * registrar.apply times each transaction, tagged with the mode (batch, or single for the one
+ * at a time fallback) and the number of messages it applied (1, 2-10, 11-100 or 101+), and
+ * registrar.apply.messages is the number of messages per transaction.
+ */
+@Component
+public class RegistrarLanes {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrarLanes.class);
+
+    // size tags of registrar.apply, by the number of messages in the transaction
+    static final String[] SIZES = {"1", "2-10", "11-100", "101+"};
+
+    private final RegistrarMessageApplier applier;
+    private final ExecutorService[] lanes;
+    private final Counter received;
+    private final Counter invalid;
+    private final Counter applied;
+    private final Counter failed;
+    private final Timer[] batchTimers = new Timer[SIZES.length];
+    private final Timer singleTimer;
+    private final DistributionSummary batchMessages;
+    private final DistributionSummary singleMessages;
+
+    public RegistrarLanes(RegistrarMessageApplier applier, RegistrarListenerProperties properties, MeterRegistry registry) {
+        this.applier = applier;
+        received = Counter.builder("registrar.messages.received")
+                .description("messages consumed from gradebook_service").register(registry);
+        invalid = Counter.builder("registrar.messages.invalid")
+                .description("messages that could not be parsed").register(registry);
+        applied = Counter.builder("registrar.messages.applied").register(registry);
+        failed = Counter.builder("registrar.messages.failed")
+                .description("messages that failed when applied on their own").register(registry);
+        for (int i=0; i<SIZES.length; i++) {
+            batchTimers[i] = Timer.builder("registrar.apply").tag("mode", "batch").tag("size", SIZES[i]).register(registry);
+        }
+        singleTimer = Timer.builder("registrar.apply").tag("mode", "single").tag("size", SIZES[0]).register(registry);
+        batchMessages = DistributionSummary.builder("registrar.apply.messages").tag("mode", "batch").register(registry);
+        singleMessages = DistributionSummary.builder("registrar.apply.messages").tag("mode", "single").register(registry);
+        int n = (properties.lanes() > 0) ? properties.lanes() : Runtime.getRuntime().availableProcessors();
+        lanes = new ExecutorService[n];
+        for (int i=0; i<n; i++) {
+            String name = "registrar-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    // parse a batch from the listener and apply it.  Invalid messages are logged and dropped.
+    public void receive(List<String> messages) {
+        received.increment(messages.size());
+        List<RegistrarMessage> batch = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            try {
+                batch.add(RegistrarMessage.parse(message));
+            } catch (Exception e) {
+                invalid.increment();
+                log.error("Error. invalid message {}: {}", message, e.getMessage());
+            }
+        }
+        if (!batch.isEmpty()) {
+            apply(batch);
+        }
+    }
+
+    public void apply(List<RegistrarMessage> batch) {
+        for (List<RegistrarMessage> segment : segments(batch)) {
+            applySegment(segment);
+        }
+    }
+
+    // cut the batch where a message depends on an entity changed earlier in the segment
+    static List<List<RegistrarMessage>> segments(List<RegistrarMessage> batch) {
+        List<List<RegistrarMessage>> segments = new ArrayList<>();
+        List<RegistrarMessage> current = new ArrayList<>();
+        Set<String> touched = new HashSet<>();
+        for (RegistrarMessage m : batch) {
+            boolean cut = m.isBarrier();
+            for (String key : m.dependsOn()) {
+                cut |= touched.contains(key);
+            }
+            if (cut && !current.isEmpty()) {
+                segments.add(current);
+                current = new ArrayList<>();
+                touched.clear();
+            }
+            current.add(m);
+            touched.add(m.key());
+            if (m.isBarrier()) {
+                segments.add(current);
+                current = new ArrayList<>();
+                touched.clear();
+            }
+        }
+        if (!current.isEmpty()) {
+            segments.add(current);
+        }
+        return segments;
+    }
+
+    private void applySegment(List<RegistrarMessage> segment) {
+        if (lanes.length == 1 || segment.size() == 1) {
+            applyWithFallback(segment);
+            return;
+        }
+        List<List<RegistrarMessage>> parts = new ArrayList<>(lanes.length);
+        for (int i=0; i<lanes.length; i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (RegistrarMessage m : segment) {
+            parts.get(lane(m.key())).add(m);
+        }
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int i=0; i<lanes.length; i++) {
+            List<RegistrarMessage> part = parts.get(i);
+            if (!part.isEmpty()) {
+                running.add(CompletableFuture.runAsync(() -> applyWithFallback(part), lanes[i]));
+            }
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+    }
+
+    int lane(String key) {
+        return Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    // apply the messages in one transaction.  If that fails apply them one at a time
+    // so one bad message does not hold back the rest.
+    private void applyWithFallback(List<RegistrarMessage> messages) {
+        try {
+            timed(batchTimers[size(messages.size())], batchMessages, messages);
+        } catch (Exception e) {
+            if (messages.size() > 1) {
+                log.warn("batch of {} messages failed ({}), applying one at a time", messages.size(), e.getMessage());
+            }
+            for (RegistrarMessage m : messages) {
+                try {
+                    timed(singleTimer, singleMessages, List.of(m));
+                } catch (Exception ex) {
+                    failed.increment();
+                    log.error("Exception applying {} {}: {}", m.command(), m.key(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    // index into SIZES
+    static int size(int messages) {
+        return (messages <= 1) ? 0 : (messages <= 10) ? 1 : (messages <= 100) ? 2 : 3;
+    }
+
+    private void timed(Timer timer, DistributionSummary sizes, List<RegistrarMessage> messages) {
+        long start = System.nanoTime();
+        applier.apply(messages);
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        sizes.record(messages.size());
+        applied.increment(messages.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.cst438.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+ * registrar.listener.* settings for the gradebook_service batch listener
+ */
+@ConfigurationProperties(prefix="registrar.listener")
+public record RegistrarListenerProperties(
+        @DefaultValue("500") int batchSize,        // messages applied per transaction
+        @DefaultValue("100") long receiveTimeoutMs, // deliver a partial batch after this wait
+        @DefaultValue("1") int concurrency,        // consumers per node
+        @DefaultValue("1000") int prefetch,        // unacked messages per consumer
+        @DefaultValue("0") int lanes,              // worker lanes applying a batch, 0 = number of cores
+        @DefaultValue("false") boolean singleActiveConsumer  // only one node consumes gradebook_service at a time
+) {
+}
@@ -0,0 +1,90 @@
+package com.cst438.service;
+
+import com.cst438.dto.CourseDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.SectionDTO;
+import com.cst438.dto.UserPasswordDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.util.List;
+
+/*
+ * A parsed message from the registrar service, e.g. "addSection {...}" or "deleteUser 7".
+ * body is the DTO for add/update messages and the id for delete messages.
+ * key identifies the entity the message changes, e.g. "section:12".
+ */
+public record RegistrarMessage(
+        String command,
+        String key,
+        Object body
+) {
+
+    // ObjectReaders are immutable and shared by all listener threads
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader COURSE_READER = MAPPER.readerFor(CourseDTO.class);
+    private static final ObjectReader SECTION_READER = MAPPER.readerFor(SectionDTO.class);
+    private static final ObjectReader USER_READER = MAPPER.readerFor(UserPasswordDTO.class);
+    private static final ObjectReader ENROLLMENT_READER = MAPPER.readerFor(EnrollmentDTO.class);
+
+    public static RegistrarMessage parse(String message) {
+        String[] parts = message.split(" ", 2);
+        String cmd = parts[0];
+        String arg = (parts.length > 1) ? parts[1].trim() : "";
+        switch (cmd) {
+            case "addCourse":
+            case "updateCourse":
+                CourseDTO course = read(COURSE_READER, arg);
+                return new RegistrarMessage(cmd, "course:" + course.courseId(), course);
+            case "deleteCourse":
+                return new RegistrarMessage(cmd, "course:" + arg, arg);
+
+            case "addSection":
+            case "updateSection":
+                SectionDTO section = read(SECTION_READER, arg);
+                return new RegistrarMessage(cmd, "section:" + section.secNo(), section);
+            case "deleteSection":
+                return new RegistrarMessage(cmd, "section:" + arg, Integer.parseInt(arg));
+
+            case "addUser":
+            case "updateUser":
+                UserPasswordDTO user = read(USER_READER, arg);
+                return new RegistrarMessage(cmd, "user:" + user.id(), user);
+            case "deleteUser":
+                return new RegistrarMessage(cmd, "user:" + arg, Integer.parseInt(arg));
+
+            case "addEnrollment":
+                EnrollmentDTO enrollment = read(ENROLLMENT_READER, arg);
+                return new RegistrarMessage(cmd, "enrollment:" + enrollment.enrollmentId(), enrollment);
+            case "deleteEnrollment":
+                return new RegistrarMessage(cmd, "enrollment:" + arg, Integer.parseInt(arg));
+
+            default:
+                throw new IllegalArgumentException("unknown message " + cmd);
+        }
+    }
+
+    // keys of other entities that must exist before this message can be applied
+    public List<String> dependsOn() {
+        if (body instanceof EnrollmentDTO dto) {
+            return List.of("user:" + dto.studentId(), "section:" + dto.sectionNo());
+        } else if (body instanceof SectionDTO dto) {
+            return List.of("course:" + dto.courseId());
+        }
+        return List.of();
+    }
+
+    // deleting a course, section or user can affect rows of other entities
+    // (database cascades and foreign keys), so it is ordered against every other message.
+    public boolean isBarrier() {
+        return command.equals("deleteCourse") || command.equals("deleteSection") || command.equals("deleteUser");
+    }
+
+    private static <T> T read(ObjectReader reader, String json) {
+        try {
+            return reader.readValue(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("invalid json " + e.getMessage(), e);
+        }
+    }
+}
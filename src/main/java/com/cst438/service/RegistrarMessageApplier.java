@@ -0,0 +1,328 @@
+package com.cst438.service;
+
+import com.cst438.domain.*;
+import com.cst438.dto.CourseDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.SectionDTO;
+import com.cst438.dto.UserPasswordDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Apply a batch of registrar messages in one transaction.
+ * All entities the batch refers to are loaded up front with one query per table,
+ * messages are then applied in order to the managed entities and hibernate writes
+ * the changes with JDBC batches when the transaction commits.
+ */
+@Service
+public class RegistrarMessageApplier {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final CourseRepository courseRepository;
+    private final SectionRepository sectionRepository;
+    private final UserRepository userRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final TermRepository termRepository;
+    private final GradeRepository gradeRepository;
+    private final AssignmentStatsService statsService;
+    private final UserDirectory userDirectory;
+    private final ReferenceDataCache referenceDataCache;
+    private final OwnershipIndex ownershipIndex;
+
+    public RegistrarMessageApplier(
+            CourseRepository courseRepository,
+            SectionRepository sectionRepository,
+            UserRepository userRepository,
+            EnrollmentRepository enrollmentRepository,
+            TermRepository termRepository,
+            GradeRepository gradeRepository,
+            AssignmentStatsService statsService,
+            UserDirectory userDirectory,
+            ReferenceDataCache referenceDataCache,
+            OwnershipIndex ownershipIndex
+    ) {
+        this.courseRepository = courseRepository;
+        this.sectionRepository = sectionRepository;
+        this.userRepository = userRepository;
+        this.enrollmentRepository = enrollmentRepository;
+        this.termRepository = termRepository;
+        this.gradeRepository = gradeRepository;
+        this.statsService = statsService;
+        this.userDirectory = userDirectory;
+        this.referenceDataCache = referenceDataCache;
+        this.ownershipIndex = ownershipIndex;
+    }
+
+    @Transactional
+    public void apply(List<RegistrarMessage> messages) {
+        References refs = load(messages);
+        // read before the deletes, the database removes these grades with their enrollments
+        Set<Integer> gradedAssignmentIds = gradedAssignmentIds(messages);
+        // users changed by the batch.  Dropping a cached user by id also drops its old email.
+        Set<Integer> userIds = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (RegistrarMessage m : messages) {
+            if (m.body() instanceof UserPasswordDTO dto) {
+                userIds.add(dto.id());
+                emails.add(dto.email());
+            } else if (m.command().equals("deleteUser")) {
+                userIds.add((Integer) m.body());
+            }
+            evict(m, refs);
+            apply(m, refs);
+        }
+        if (!userIds.isEmpty()) {
+            userDirectory.invalidateAfterCommit(userIds, emails);
+        }
+        if (!gradedAssignmentIds.isEmpty()) {
+            // only the statistics of assignments that lost graded scores are read again
+            statsService.refreshAfterCommit(gradedAssignmentIds);
+        }
+    }
+
+    // the assignments whose statistics change when the batch deletes sections, users or enrollments
+    private Set<Integer> gradedAssignmentIds(List<RegistrarMessage> messages) {
+        Set<Integer> sectionNos = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        Set<Integer> enrollmentIds = new HashSet<>();
+        for (RegistrarMessage m : messages) {
+            if (m.command().equals("deleteSection")) {
+                sectionNos.add((Integer) m.body());
+            } else if (m.command().equals("deleteUser")) {
+                userIds.add((Integer) m.body());
+            } else if (m.command().equals("deleteEnrollment")) {
+                enrollmentIds.add((Integer) m.body());
+            }
+        }
+        Set<Integer> assignmentIds = new HashSet<>();
+        if (!sectionNos.isEmpty()) {
+            assignmentIds.addAll(gradeRepository.findGradedAssignmentIdsBySectionNos(sectionNos));
+        }
+        if (!userIds.isEmpty()) {
+            assignmentIds.addAll(gradeRepository.findGradedAssignmentIdsByStudentIds(userIds));
+        }
+        if (!enrollmentIds.isEmpty()) {
+            assignmentIds.addAll(gradeRepository.findGradedAssignmentIdsByEnrollmentIds(enrollmentIds));
+        }
+        return assignmentIds;
+    }
+
+    // drop the cached reference data a message changes and update the ownership index once
+    // the batch commits.  Called before the message is applied so an enrollment's old section is known.
+    private void evict(RegistrarMessage m, References refs) {
+        switch (m.command()) {
+            case "addCourse":
+            case "updateCourse":
+                referenceDataCache.evictCourseAfterCommit(((CourseDTO) m.body()).courseId());
+                break;
+            case "deleteCourse":
+                referenceDataCache.evictCourseAfterCommit((String) m.body());
+                break;
+            case "addSection":
+            case "updateSection":
+                SectionDTO sto = (SectionDTO) m.body();
+                referenceDataCache.evictSectionAfterCommit(sto.secNo());
+                ownershipIndex.sectionChangedAfterCommit(sto.secNo(), sto.instructorEmail());
+                break;
+            case "deleteSection":
+                referenceDataCache.evictSectionAfterCommit((Integer) m.body());
+                ownershipIndex.sectionRemovedAfterCommit((Integer) m.body());
+                break;
+            case "deleteUser":
+                // the database deletes the user's enrollments
+                referenceDataCache.evictAllEnrollmentsAfterCommit();
+                break;
+            case "addEnrollment":
+            case "deleteEnrollment":
+                int enrollmentId = (m.body() instanceof EnrollmentDTO dto) ? dto.enrollmentId() : (Integer) m.body();
+                Enrollment e = refs.enrollments.get(enrollmentId);
+                if (e != null && e.getSection() != null) {
+                    referenceDataCache.evictEnrollmentsAfterCommit(e.getSection().getSectionNo());
+                }
+                if (m.body() instanceof EnrollmentDTO dto) {
+                    referenceDataCache.evictEnrollmentsAfterCommit(dto.sectionNo());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void apply(RegistrarMessage m, References refs) {
+        switch (m.command()) {
+            case "addCourse":
+            case "updateCourse":
+                CourseDTO dto = (CourseDTO) m.body();
+                Course c = refs.courses.get(dto.courseId());
+                if (c==null) {
+                    c = new Course();
+                    c.setCourseId(dto.courseId());
+                    entityManager.persist(c);
+                    refs.courses.put(dto.courseId(), c);
+                }
+                c.setTitle(dto.title());
+                c.setCredits(dto.credits());
+                break;
+            case "deleteCourse":
+                remove(refs.courses.remove((String) m.body()));
+                break;
+
+            case "addSection":
+            case "updateSection":
+                SectionDTO sto = (SectionDTO) m.body();
+                Section s = refs.sections.get(sto.secNo());
+                if (s==null) {
+                    s = new Section();
+                    s.setSectionNo(sto.secNo());
+                    refs.sections.put(sto.secNo(), s);
+                    fillSection(s, sto, refs);
+                    entityManager.persist(s);
+                } else {
+                    fillSection(s, sto, refs);
+                }
+                break;
+            case "deleteSection":
+                remove(refs.sections.remove((Integer) m.body()));
+                break;
+
+            case "addUser":
+            case "updateUser":
+                UserPasswordDTO uto = (UserPasswordDTO) m.body();
+                User u = refs.users.get(uto.id());
+                if (u==null) {
+                    u = new User();
+                    u.setId(uto.id());
+                    refs.users.put(uto.id(), u);
+                    fillUser(u, uto);
+                    entityManager.persist(u);
+                } else {
+                    fillUser(u, uto);
+                }
+                break;
+            case "deleteUser":
+                remove(refs.users.remove((Integer) m.body()));
+                break;
+
+            case "addEnrollment":
+                EnrollmentDTO eto = (EnrollmentDTO) m.body();
+                Enrollment e = refs.enrollments.get(eto.enrollmentId());
+                boolean isNew = (e==null);
+                if (isNew) {
+                    e = new Enrollment();
+                    e.setEnrollmentId(eto.enrollmentId());
+                    refs.enrollments.put(eto.enrollmentId(), e);
+                }
+                e.setStudent(refs.users.get(eto.studentId()));
+                e.setSection(refs.sections.get(eto.sectionNo()));
+                e.setGrade(eto.grade());
+                if (isNew) {
+                    entityManager.persist(e);
+                }
+                break;
+            case "deleteEnrollment":
+                remove(refs.enrollments.remove((Integer) m.body()));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown message " + m.command());
+        }
+    }
+
+    private void fillSection(Section s, SectionDTO sto, References refs) {
+        s.setInstructorEmail(sto.instructorEmail());
+        s.setSectionId(sto.secId());
+        s.setBuilding(sto.building());
+        s.setRoom(sto.room());
+        s.setTimes(sto.times());
+        s.setTerm(refs.terms.get(termKey(sto.year(), sto.semester())));
+        s.setCourse(refs.courses.get(sto.courseId()));
+    }
+
+    private void fillUser(User u, UserPasswordDTO uto) {
+        u.setName(uto.name());
+        u.setEmail(uto.email());
+        u.setPassword(uto.password());
+        u.setType(uto.type());
+    }
+
+    // deletes are flushed at once so that a later add of the same id in the batch
+    // is inserted after the delete.
+    private void remove(Object entity) {
+        if (entity != null) {
+            entityManager.remove(entity);
+            entityManager.flush();
+        }
+    }
+
+    // load every entity referenced by the batch with one query per table
+    private References load(List<RegistrarMessage> messages) {
+        Set<String> courseIds = new HashSet<>();
+        Set<Integer> sectionNos = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        Set<Integer> enrollmentIds = new HashSet<>();
+        boolean needTerms = false;
+        for (RegistrarMessage m : messages) {
+            if (m.body() instanceof CourseDTO dto) {
+                courseIds.add(dto.courseId());
+            } else if (m.body() instanceof SectionDTO dto) {
+                sectionNos.add(dto.secNo());
+                courseIds.add(dto.courseId());
+                needTerms = true;
+            } else if (m.body() instanceof UserPasswordDTO dto) {
+                userIds.add(dto.id());
+            } else if (m.body() instanceof EnrollmentDTO dto) {
+                enrollmentIds.add(dto.enrollmentId());
+                userIds.add(dto.studentId());
+                sectionNos.add(dto.sectionNo());
+            } else if (m.command().equals("deleteCourse")) {
+                courseIds.add((String) m.body());
+            } else if (m.command().equals("deleteSection")) {
+                sectionNos.add((Integer) m.body());
+            } else if (m.command().equals("deleteUser")) {
+                userIds.add((Integer) m.body());
+            } else if (m.command().equals("deleteEnrollment")) {
+                enrollmentIds.add((Integer) m.body());
+            }
+        }
+        References refs = new References();
+        if (!courseIds.isEmpty()) {
+            courseRepository.findAllById(courseIds).forEach(c -> refs.courses.put(c.getCourseId(), c));
+        }
+        if (!sectionNos.isEmpty()) {
+            sectionRepository.findAllById(sectionNos).forEach(s -> refs.sections.put(s.getSectionNo(), s));
+        }
+        if (!userIds.isEmpty()) {
+            userRepository.findAllById(userIds).forEach(u -> refs.users.put(u.getId(), u));
+        }
+        if (!enrollmentIds.isEmpty()) {
+            enrollmentRepository.findAllById(enrollmentIds).forEach(e -> refs.enrollments.put(e.getEnrollmentId(), e));
+        }
+        if (needTerms) {
+            // the term table holds a handful of rows
+            termRepository.findAll().forEach(t -> refs.terms.put(termKey(t.getYear(), t.getSemester()), t));
+        }
+        return refs;
+    }
+
+    private static String termKey(int year, String semester) {
+        return year + " " + semester;
+    }
+
+    // managed entities of the current batch by primary key
+    private static class References {
+        final Map<String, Course> courses = new HashMap<>();
+        final Map<Integer, Section> sections = new HashMap<>();
+        final Map<Integer, User> users = new HashMap<>();
+        final Map<Integer, Enrollment> enrollments = new HashMap<>();
+        final Map<String, Term> terms = new HashMap<>();
+    }
+}
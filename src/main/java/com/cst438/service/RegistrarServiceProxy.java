@@ -1,140 +1,76 @@
 package com.cst438.service;
 
-import com.cst438.domain.*;
-import com.cst438.dto.*;
+import com.cst438.domain.OutboxRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
 
 @Service
 public class RegistrarServiceProxy {
 
-    @Autowired
-    CourseRepository courseRepository;
-
-    @Autowired
-    SectionRepository sectionRepository;
-
-    @Autowired
-    UserRepository userRepository;
+    private static final Logger log = LoggerFactory.getLogger(RegistrarServiceProxy.class);
 
-    @Autowired
-    EnrollmentRepository enrollmentRepository;
+    // ObjectMapper is thread safe once configured
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
     @Autowired
-    TermRepository termRepository;
+    RegistrarLanes lanes;
 
 
     Queue registrarServiceQueue = new Queue("registrar_service", true);
 
-    @Bean
-    public Queue createQueue() {
-        return new Queue("gradebook_service", true);
-    }
-
     @Autowired
-    RabbitTemplate rabbitTemplate;
-
-    @RabbitListener(queues = "gradebook_service")
-    public void receiveFromRegistrar(String message) {
-
-        System.out.println("received " + message);
-        try {
-            String[] parts = message.split(" ", 2);
-            switch (parts[0]) {
-                case "addCourse":
-                case "updateCourse":
-                    CourseDTO dto = fromJsonString(parts[1], CourseDTO.class);
-                    Course c = new Course();
-                    c.setCourseId(dto.courseId());
-                    c.setTitle(dto.title());
-                    c.setCredits(dto.credits());
-                    courseRepository.save(c);
-                    break;
-                case "deleteCourse":
-                    courseRepository.deleteById(parts[1]);
-                    break;
+    OutboxRepository outboxRepository;
 
-                case "addSection":
-                case "updateSection":
-                    SectionDTO sto = fromJsonString(parts[1], SectionDTO.class);
-                    Section s = new Section();
-                    s.setInstructorEmail(sto.instructorEmail());
-                    s.setSectionId(sto.secId());
-                    s.setBuilding(sto.building());
-                    s.setRoom(sto.room());
-                    s.setTimes(sto.times());
-                    s.setSectionNo(sto.secNo());
-                    Term t = termRepository.findByYearAndSemester(sto.year(), sto.semester());
-                    s.setTerm(t);
-                    Course co = courseRepository.findById(sto.courseId()).orElse(null);
-                    s.setCourse(co);
-                    sectionRepository.save(s);
-                    break;
-
-                case "deleteSection":
-                    sectionRepository.deleteById(Integer.parseInt(parts[1]));
-                    break;
-
-                case "addUser":
-                case "updateUser":
-                    UserPasswordDTO uto = fromJsonString(parts[1], UserPasswordDTO.class);
-                    User u = new User();
-                    u.setId(uto.id());
-                    u.setName(uto.name());
-                    u.setEmail(uto.email());
-                    u.setPassword(uto.password());
-                    u.setType(uto.type());
-                    userRepository.save(u);
-                    break;
-                case "deleteUser":
-                    userRepository.deleteById(Integer.parseInt(parts[1]));
-                    break;
+    @Autowired
+    OutboxRelay outboxRelay;
 
-                case "addEnrollment":
-                    EnrollmentDTO eto = fromJsonString(parts[1], EnrollmentDTO.class);
-                    Enrollment e = new Enrollment();
-                    e.setEnrollmentId(eto.enrollmentId());
-                    User student = userRepository.findById(eto.studentId()).orElse(null);
-                    e.setStudent(student);
-                    Section es = sectionRepository.findById(eto.sectionNo()).orElse(null);
-                    e.setSection(es);
-                    e.setGrade(eto.grade());
-                    enrollmentRepository.save(e);
-                    break;
-                case "deleteEnrollment":
-                    enrollmentRepository.deleteById(Integer.parseInt(parts[1]));
-                    break;
-                default:
-                    System.out.println("Error. unknown message " + parts[0]);
-            }
-        } catch (Exception e) {
-            System.out.println("Exception "+e.getMessage());
-        }
+    // messages from the registrar arrive in batches.  The batch is spread over the worker
+    // lanes by entity key and the listener returns (and acks) when all of it is applied.
+    @RabbitListener(queues = "gradebook_service", containerFactory = "registrarBatchContainerFactory")
+    public void receiveFromRegistrar(List<String> messages) {
+        lanes.receive(messages);
     }
 
+    // messages to the registrar are written to the outbox in the caller's transaction
+    // and published by OutboxRelay after the transaction commits.
     public void sendMessage(String cmd, Object obj) {
-        String msg = cmd +" "+ asJsonString(obj);
-        System.out.println("Sending "+msg);
-        rabbitTemplate.convertAndSend(registrarServiceQueue.getName(), msg);
+        send(cmd +" "+ asJsonString(obj));
     }
 
-    private static String asJsonString(final Object obj) {
-        try {
-            return new ObjectMapper().writeValueAsString(obj);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    // send one message carrying all objects in the list, e.g. "updateEnrollments [{...},{...}]".
+    public void sendBatchMessage(String cmd, List<?> list) {
+        send(cmd +" "+ asJsonString(list));
+    }
+
+    private void send(String msg) {
+        log.debug("Sending {}", msg);
+        outboxRepository.add(registrarServiceQueue.getName(), msg);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.wakeUp();
+                }
+            });
+        } else {
+            outboxRelay.wakeUp();
         }
     }
-    private static <T> T  fromJsonString(String str, Class<T> valueType ) {
+
+    static String asJsonString(final Object obj) {
         try {
-            return new ObjectMapper().readValue(str, valueType);
+            return MAPPER.writeValueAsString(obj);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+}
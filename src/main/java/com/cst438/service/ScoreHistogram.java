@@ -0,0 +1,44 @@
+package com.cst438.service;
+
+import com.cst438.dto.AssignmentStatsDTO;
+
+/*
+ * Running score distribution of one assignment.
+ * Scores are 0..100 (check constraint on grade.score) so 101 counters hold the whole
+ * distribution and every statistic is computed from them without looking at the grades.
+ */
+class ScoreHistogram {
+
+    static final int MAX_SCORE = 100;
+
+    private final int[] counts = new int[MAX_SCORE + 1];
+    private int count;
+    private long sum;
+
+    synchronized void add(int score, int n) {
+        counts[score] += n;
+        count += n;
+        sum += (long) score * n;
+    }
+
+    synchronized AssignmentStatsDTO toDTO(int assignmentId) {
+        if (count == 0) {
+            return new AssignmentStatsDTO(assignmentId, 0, null, null, null, null, counts.clone());
+        }
+        int min = 0;
+        while (counts[min] == 0) min++;
+        int max = MAX_SCORE;
+        while (counts[max] == 0) max--;
+        // the median is the mean of the scores at positions (count-1)/2 and count/2
+        int lower = -1;
+        int upper = -1;
+        int seen = 0;
+        for (int s = min; s <= max && upper < 0; s++) {
+            seen += counts[s];
+            if (lower < 0 && seen > (count - 1) / 2) lower = s;
+            if (seen > count / 2) upper = s;
+        }
+        return new AssignmentStatsDTO(assignmentId, count, (double) sum / count, (lower + upper) / 2.0,
+                min, max, counts.clone());
+    }
+}
@@ -1,44 +1,89 @@
 package com.cst438.service;
 
+import com.cst438.LoginProperties;
+import com.cst438.RsaKeyProperties;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.stream.Collectors;
 
+/*
+ * Access tokens are short-lived and sent on every request.  Refresh tokens are returned by
+ * /login and exchanged at /login/refresh for a new access token without a password check.
+ * The token_type claim keeps one from being used as the other.
+ */
 @Service
 public class TokenService {
 
+	public static final String TOKEN_TYPE = "token_type";
+	public static final String ACCESS = "access";
+	public static final String REFRESH = "refresh";
+
 	private final JwtEncoder encoder;
+	private final NimbusJwtDecoder refreshDecoder;
+	private final LoginProperties properties;
 	
-	public TokenService(JwtEncoder encoder) {
+	public TokenService(JwtEncoder encoder, RsaKeyProperties rsaKeys, LoginProperties properties) {
 		this.encoder = encoder;
+		this.properties = properties;
+		refreshDecoder = NimbusJwtDecoder.withPublicKey(rsaKeys.publicKey()).build();
+		refreshDecoder.setJwtValidator(validator(REFRESH));
+	}
+
+	// signature, expiry and the token_type claim
+	public static OAuth2TokenValidator<Jwt> validator(String tokenType) {
+		OAuth2Error error = new OAuth2Error("invalid_token", "token_type is not " + tokenType, null);
+		OAuth2TokenValidator<Jwt> type = jwt -> tokenType.equals(jwt.getClaimAsString(TOKEN_TYPE))
+				? OAuth2TokenValidatorResult.success()
+				: OAuth2TokenValidatorResult.failure(error);
+		return new DelegatingOAuth2TokenValidator<>(JwtValidators.createDefault(), type);
 	}
 	
 	public String generateToken(Authentication authentication) {
-		Instant now = Instant.now();
-
-		System.out.println("name "+authentication.getName());
-		for (GrantedAuthority a : authentication.getAuthorities()) {
-			System.out.println("Authority "+a.getAuthority());
-		}
-
-
 		String scope = authentication.getAuthorities().stream()
 				.map(GrantedAuthority::getAuthority)
 				.collect(Collectors.joining(""));
-		JwtClaimsSet claims = JwtClaimsSet.builder()
+		return generateToken(authentication.getName(), scope);
+	}
+
+	public String generateToken(String subject, String scope) {
+		return encode(subject, ACCESS, properties.accessTokenTtl(), scope);
+	}
+
+	public String generateRefreshToken(String subject) {
+		return encode(subject, REFRESH, properties.refreshTokenTtl(), null);
+	}
+
+	// the subject of a valid refresh token
+	public String verifyRefreshToken(String token) throws JwtException {
+		return refreshDecoder.decode(token).getSubject();
+	}
+
+	private String encode(String subject, String tokenType, Duration ttl, String scope) {
+		Instant now = Instant.now();
+		JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
 		 .issuer("self")
 		 .issuedAt(now)
-		 .expiresAt(now.plus(1, ChronoUnit.HOURS))
-		 .subject(authentication.getName())
-		 .claim("scope", scope)
-		 .build();
-		return this.encoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+		 .expiresAt(now.plus(ttl))
+		 .subject(subject)
+		 .claim(TOKEN_TYPE, tokenType);
+		if (scope != null) {
+			claims.claim("scope", scope);
+		}
+		return this.encoder.encode(JwtEncoderParameters.from(claims.build())).getTokenValue();
 	}
 }
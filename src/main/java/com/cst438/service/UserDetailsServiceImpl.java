@@ -1,7 +1,5 @@
 package com.cst438.service;
 
-import com.cst438.domain.User;
-import com.cst438.domain.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.User.UserBuilder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,18 +10,18 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService  {
 	@Autowired
-	private UserRepository repository;
+	private UserDirectory userDirectory;
 
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-		User currentUser = repository.findByEmail(username);
+		UserDirectory.Entry currentUser = userDirectory.findByEmail(username);
 
 		UserBuilder builder = null;
 		if (currentUser!=null) {
 			builder = org.springframework.security.core.userdetails.User.withUsername(username);
-			builder.password(currentUser.getPassword());
+			builder.password(currentUser.password());
 			// setting role to XXXX is equivalent to the authority ROLE_XXXX
-			builder.roles(currentUser.getType());
+			builder.roles(currentUser.type());
 		} else {
 			System.out.println("User not found.");
 			throw new UsernameNotFoundException("User not found.");
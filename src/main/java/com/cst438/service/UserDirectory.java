@@ -0,0 +1,176 @@
+package com.cst438.service;
+
+import com.cst438.domain.User;
+import com.cst438.domain.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Users by email and by id kept in memory for logins and token refresh.
+ *
+ * Users only change through registrar messages.  RegistrarMessageApplier invalidates the
+ * users of addUser, updateUser and deleteUser once their transaction commits.  A lookup
+ * that read the database before an invalidation does not store its result, so a user
+ * changed while it was being loaded is read again next time.
+ *
+ * At most cacheSize users are kept, the least recently used are evicted first, and an
+ * entry is reloaded after ttl.
+ *
+ * Registrar messages reach only the node that is the active consumer of gradebook_service,
+ * so only that node invalidates on commit.  Every other node sees a changed or deleted user
+ * only once its entry is older than ttl: for up to ttl (30s by default) a deleted user can
+ * still log in or refresh there, with the old password and role.  Access tokens issued
+ * before the change stay valid until they expire whatever this cache holds.
+ *
+ * Metrics: users.cache.requests tagged result=hit|miss and the users.cache.size gauge.
+ */
+@Service
+public class UserDirectory {
+
+    // a copy of the user row, never a managed entity
+    public record Entry(int id, String type, String name, String email, String password, long loadedAt) { }
+
+    private final UserRepository userRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+
+    // guarded by this
+    private final LinkedHashMap<String, Entry> byEmail;
+    private final Map<Integer, Entry> byId = new HashMap<>();
+    private long generation;
+
+    @Autowired
+    public UserDirectory(UserRepository userRepository, UserDirectoryProperties properties, MeterRegistry registry) {
+        this(userRepository, properties, Clock.systemUTC(), registry);
+    }
+
+    UserDirectory(UserRepository userRepository, UserDirectoryProperties properties, Clock clock, MeterRegistry registry) {
+        this.userRepository = userRepository;
+        this.maxSize = properties.cacheSize();
+        this.ttlMillis = properties.ttl().toMillis();
+        this.clock = clock;
+        byEmail = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    byId.remove(eldest.getValue().id());
+                    return true;
+                }
+                return false;
+            }
+        };
+        hits = Counter.builder("users.cache.requests").tag("result", "hit").register(registry);
+        misses = Counter.builder("users.cache.requests").tag("result", "miss").register(registry);
+        Gauge.builder("users.cache.size", this, UserDirectory::size).register(registry);
+    }
+
+    // the user with the email, or null
+    public Entry findByEmail(String email) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry e = byEmail.get(email);
+            if (e != null && fresh(e)) {
+                hits.increment();
+                return e;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        return store(userRepository.findByEmail(email), loadGeneration);
+    }
+
+    // the user with the id, or null
+    public Entry findById(int id) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry e = byId.get(id);
+            if (e != null && fresh(e)) {
+                hits.increment();
+                byEmail.get(e.email());  // counts as a use for LRU
+                return e;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        return store(userRepository.findById(id).orElse(null), loadGeneration);
+    }
+
+    // drop the users when the current transaction commits
+    public void invalidateAfterCommit(Collection<Integer> ids, Collection<String> emails) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(ids, emails);
+                }
+            });
+        } else {
+            invalidate(ids, emails);
+        }
+    }
+
+    public synchronized void invalidate(Collection<Integer> ids, Collection<String> emails) {
+        generation++;
+        for (Integer id : ids) {
+            Entry e = byId.remove(id);
+            if (e != null) {
+                byEmail.remove(e.email());
+            }
+        }
+        for (String email : emails) {
+            Entry e = byEmail.remove(email);
+            if (e != null) {
+                byId.remove(e.id());
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        byEmail.clear();
+        byId.clear();
+    }
+
+    public synchronized int size() {
+        return byEmail.size();
+    }
+
+    private Entry store(User u, long loadGeneration) {
+        if (u == null) {
+            return null;
+        }
+        Entry e = new Entry(u.getId(), u.getType(), u.getName(), u.getEmail(), u.getPassword(), clock.millis());
+        synchronized (this) {
+            // skip if users were invalidated while this one was read
+            if (generation == loadGeneration) {
+                Entry old = byId.put(e.id(), e);
+                if (old != null) {
+                    byEmail.remove(old.email());
+                }
+                old = byEmail.put(e.email(), e);
+                if (old != null && old.id() != e.id()) {
+                    byId.remove(old.id());
+                }
+            }
+        }
+        return e;
+    }
+
+    private boolean fresh(Entry e) {
+        return clock.millis() - e.loadedAt() < ttlMillis;
+    }
+}
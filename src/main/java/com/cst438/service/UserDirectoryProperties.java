@@ -0,0 +1,16 @@
+package com.cst438.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/*
+ * gradebook.users.* settings for UserDirectory
+ */
+@ConfigurationProperties(prefix="gradebook.users")
+public record UserDirectoryProperties(
+        @DefaultValue("100000") int cacheSize,  // users kept in memory, least recently used are evicted
+        @DefaultValue("30s") Duration ttl       // reload a user after this long, the staleness bound on nodes without registrar messages
+) {
+}
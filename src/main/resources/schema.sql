@@ -45,23 +45,48 @@ create table enrollment (
     foreign key(user_id) references user_table(id) on delete cascade
 );
 
-create sequence assignment_seq START WITH 6000;
+-- hibernate takes ids from assignment_seq and grade_seq in blocks of 50 (pooled-lo).
+-- rows inserted by SQL without an id take one id at a time from the *_row_seq column
+-- defaults, which count up from 1000000000 so the two ranges never meet.
+create sequence assignment_seq START WITH 6000 INCREMENT BY 50 MAXVALUE 999999000;
+create sequence assignment_row_seq START WITH 1000000000 INCREMENT BY 1;
 
 create table assignment (
-    assignment_id int  default next value for assignment_seq primary key,
+    assignment_id int  default next value for assignment_row_seq primary key,
     section_no int not null,
     title varchar(250) not null,
     due_date Date,
     foreign key (section_no) references section(section_no)
 );
 
-create sequence grade_seq START WITH 12000;
+create sequence grade_seq START WITH 12000 INCREMENT BY 50 MAXVALUE 999999000;
+create sequence grade_row_seq START WITH 1000000000 INCREMENT BY 1;
 
 create table grade (
-   grade_id int default next value for grade_seq primary key,
+   grade_id int default next value for grade_row_seq primary key,
    enrollment_id int not null,
    assignment_id int not null,
    score int check (score between 0 and 100),
+   -- one grade per student and assignment, even when two requests create the row at once
+   unique (enrollment_id, assignment_id),
    foreign key(enrollment_id) references enrollment(enrollment_id) on delete cascade,
    foreign key(assignment_id) references assignment(assignment_id) on delete cascade
 );
+
+-- messages to other services written in the same transaction as the change they describe.
+-- OutboxRelay publishes them in id order and deletes them once the broker confirms.
+create table outbox_message (
+   id bigint auto_increment primary key,
+   queue varchar(50) not null,
+   message varchar(1000000) not null,
+   created_at timestamp not null
+);
+
+-- any node may run OutboxRelay.  The relay only publishes while it holds this lease, so
+-- one node at a time relays the outbox and messages keep their order.
+create table outbox_lease (
+   id int primary key,
+   owner varchar(100),
+   expires_at timestamp not null
+);
+insert into outbox_lease (id, owner, expires_at) values (1, null, timestamp '2000-01-01 00:00:00');
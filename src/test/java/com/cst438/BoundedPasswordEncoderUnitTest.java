@@ -0,0 +1,116 @@
+package com.cst438;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * BoundedPasswordEncoder limits concurrent password checks, without Spring.
+ */
+public class BoundedPasswordEncoderUnitTest {
+
+    // a password check that blocks until released
+    static class SlowEncoder implements PasswordEncoder {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            calls.incrementAndGet();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            // like BCrypt, the check does not stop when its thread is interrupted
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                active.decrementAndGet();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString().equals(encodedPassword);
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+    }
+
+    @Test
+    public void rejectsBeyondQueue() throws Exception {
+        SlowEncoder slow = new SlowEncoder();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 2, 2, 10000);
+
+        // 2 running and 2 queued, each login on its own request thread
+        ExecutorService requests = Executors.newFixedThreadPool(4);
+        CompletableFuture<?>[] logins = new CompletableFuture[4];
+        for (int i=0; i<logins.length; i++) {
+            logins[i] = CompletableFuture.supplyAsync(() -> encoder.matches("pw", "pw"), requests);
+        }
+        while (slow.active.get() < 2 || encoder.queued() < 2) {
+            Thread.sleep(5);
+        }
+        assertThrows(BoundedPasswordEncoder.LoginThrottledException.class, () -> encoder.matches("pw", "pw"));
+
+        slow.release.countDown();
+        for (CompletableFuture<?> login : logins) {
+            assertEquals(Boolean.TRUE, login.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(2, slow.maxActive.get());
+        assertFalse(encoder.matches("pw", "other"));
+        requests.shutdown();
+    }
+
+    @Test
+    public void timesOut() {
+        SlowEncoder slow = new SlowEncoder();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 1, 50);
+        assertThrows(BoundedPasswordEncoder.LoginThrottledException.class, () -> encoder.matches("pw", "pw"));
+        slow.release.countDown();
+    }
+
+    // a check that timed out while queued gives its place back and never runs
+    @Test
+    public void timedOutCheckLeavesQueue() throws Exception {
+        SlowEncoder slow = new SlowEncoder();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 1, 100);
+
+        // the only thread is busy with a check that outlives its caller
+        ExecutorService requests = Executors.newSingleThreadExecutor();
+        CompletableFuture<?> first = CompletableFuture.runAsync(() ->
+                assertThrows(BoundedPasswordEncoder.LoginThrottledException.class, () -> encoder.matches("pw", "pw")), requests);
+        while (slow.active.get() < 1) {
+            Thread.sleep(5);
+        }
+        // each of these waits in the queue, times out and is removed, so none is turned away as a full queue
+        for (int i=0; i<3; i++) {
+            BoundedPasswordEncoder.LoginThrottledException e = assertThrows(
+                    BoundedPasswordEncoder.LoginThrottledException.class, () -> encoder.matches("pw", "pw"));
+            assertEquals("password check timed out", e.getMessage());
+        }
+        first.get(10, TimeUnit.SECONDS);
+
+        slow.release.countDown();
+        assertTrue(encoder.matches("pw", "pw"));
+        assertEquals(2, slow.calls.get(), "a cancelled check ran");
+        requests.shutdown();
+    }
+}
@@ -0,0 +1,87 @@
+package com.cst438;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * CachingJwtDecoder with a counting delegate and a clock set by the test, without Spring.
+ */
+public class CachingJwtDecoderUnitTest {
+
+    static final Instant NOW = Instant.parse("2025-09-01T12:00:00Z");
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    AtomicInteger verified = new AtomicInteger();
+
+    // every token expires an hour after NOW except "noexpiry"
+    JwtDecoder delegate = token -> {
+        verified.incrementAndGet();
+        Jwt.Builder jwt = Jwt.withTokenValue(token).header("alg", "RS256").subject(token);
+        if (!token.equals("noexpiry")) {
+            jwt.expiresAt(NOW.plus(Duration.ofHours(1)));
+        }
+        return jwt.build();
+    };
+
+    @Test
+    public void verifiesEachTokenOnce() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 100, clock(NOW), registry);
+        for (int i=0; i<5; i++) {
+            assertEquals("a", decoder.decode("a").getSubject());
+            assertEquals("b", decoder.decode("b").getSubject());
+        }
+        assertEquals(2, verified.get());
+        assertEquals(8, registry.counter("jwt.cache.requests", "result", "hit").count());
+        assertEquals(2, registry.counter("jwt.cache.requests", "result", "miss").count());
+
+        decoder.decode("noexpiry");
+        decoder.decode("noexpiry");
+        assertEquals(4, verified.get(), "tokens without expiry must not be cached");
+    }
+
+    // a cached token that has expired is dropped and the delegate verifies it again
+    @Test
+    public void expiredTokenGoesToDelegate() {
+        MutableClock clock = new MutableClock(NOW);
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 100, clock, registry);
+        decoder.decode("a");
+        decoder.decode("a");
+        assertEquals(1, verified.get());
+        assertEquals(1, decoder.size());
+
+        clock.advance(Duration.ofHours(2));
+        decoder.decode("a");
+        assertEquals(2, verified.get(), "expired token was served from the cache");
+        // the delegate's token is expired at the later time as well, so it is not cached again
+        assertEquals(0, decoder.size());
+        decoder.decode("a");
+        assertEquals(3, verified.get());
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 100, clock(NOW), registry);
+        for (int i=0; i<1000; i++) {
+            decoder.decode("token" + i);
+        }
+        assertTrue(decoder.size() <= 100, "cache grew to " + decoder.size());
+        // the most recent token is kept
+        int before = verified.get();
+        decoder.decode("token999");
+        assertEquals(before, verified.get());
+    }
+
+    private Clock clock(Instant instant) {
+        return Clock.fixed(instant, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,64 @@
+package com.cst438;
+
+import com.cst438.service.RegistrarServiceProxy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * The generated rows and the moved sequences would be seen by every other test, so this test
+ * runs against a database of its own that is dropped with its context afterwards.  The
+ * second-level cache is off because the ehcache CacheManager is shared by every context and
+ * closing this one would close it for the others.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:datagen",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"
+})
+@DirtiesContext
+public class DataGeneratorUnitTest {
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void generateSmallDataset() {
+        DataGenerator generator = new DataGenerator(jdbcTemplate,
+                new DataGeneratorProperties(500, 20, 5, 2, 4, 10, 438));
+        generator.generate();
+
+        int first = DataGenerator.FIRST_ID;
+        assertEquals(5 + 500, count("select count(*) from user_table where id >= ?", first));
+        assertEquals(20, count("select count(*) from section where section_no >= ?", first));
+        assertEquals(20 * 5, count("select count(*) from assignment where assignment_id >= ? and assignment_id < ?", first, first + 100));
+        assertEquals(500 * 2, count("select count(*) from enrollment where enrollment_id >= ?", first));
+        // every grade of every enrollment has a score
+        assertEquals(500 * 2 * 5, count("select count(*) from grade where grade_id >= ? and grade_id < ? and score is not null",
+                first, first + 5000));
+        // no student is enrolled twice in a section
+        assertEquals(0, count("select count(*) from (select user_id, section_no from enrollment where enrollment_id >= ? " +
+                "group by user_id, section_no having count(*) > 1)", first));
+        // new ids from the sequences do not collide with generated ids
+        Long next = jdbcTemplate.queryForObject("select next value for grade_seq", Long.class);
+        assertTrue(next >= first + 5000);
+        next = jdbcTemplate.queryForObject("select next value for assignment_seq", Long.class);
+        assertTrue(next >= first + 100);
+
+        // the sequences are past FIRST_ID now so a second run could collide with ids hibernate holds
+        assertThrows(IllegalStateException.class, generator::generate);
+        assertEquals(5 + 500, count("select count(*) from user_table where id >= ?", first));
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+}
@@ -0,0 +1,33 @@
+package com.cst438;
+
+import com.cst438.metrics.StatementCountFilter;
+import org.springframework.test.web.reactive.server.ExchangeResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Assertions on the number of SQL statements a request ran, read from the
+ * X-SQL-Statement-Count response header.
+ */
+public final class StatementCountAssertions {
+
+    private StatementCountAssertions() {
+    }
+
+    public static int statementCount(ExchangeResult result) {
+        String header = result.getResponseHeaders().getFirst(StatementCountFilter.HEADER);
+        assertNotNull(header, "response has no " + StatementCountFilter.HEADER + " header");
+        return Integer.parseInt(header);
+    }
+
+    public static void assertStatementCount(int expected, ExchangeResult result) {
+        assertEquals(expected, statementCount(result),
+                "SQL statements run by " + result.getMethod() + " " + result.getUrl().getPath());
+    }
+
+    public static void assertStatementCountAtMost(int max, ExchangeResult result) {
+        int count = statementCount(result);
+        assertTrue(count <= max, result.getMethod() + " " + result.getUrl().getPath() + " ran " + count +
+                " SQL statements, at most " + max + " expected");
+    }
+}
@@ -0,0 +1,39 @@
+package com.cst438;
+
+import com.cst438.service.AssignmentStatsService;
+import com.cst438.service.OwnershipIndex;
+import com.cst438.service.UserDirectory;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/*
+ * Removes the rows a test class added to the shared test database.  Tests keep their
+ * sections, users and enrollments in an id range of their own; deleting the range also
+ * deletes the assignments of those sections and, by cascade, their grades.  Copies kept in
+ * the second-level cache and the in-memory indexes are dropped as well.
+ */
+public final class TestData {
+
+    private TestData() {
+    }
+
+    // sections, users and enrollments with from <= id < to
+    public static void deleteIdRange(ApplicationContext context, int from, int to) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("delete from enrollment where (enrollment_id >= ? and enrollment_id < ?) " +
+                "or (section_no >= ? and section_no < ?)", from, to, from, to);
+        jdbc.update("delete from assignment where section_no >= ? and section_no < ?", from, to);
+        jdbc.update("delete from section where section_no >= ? and section_no < ?", from, to);
+        jdbc.update("delete from user_table where id >= ? and id < ?", from, to);
+        refresh(context);
+    }
+
+    // drop everything held in memory about rows that were changed behind the application's back
+    public static void refresh(ApplicationContext context) {
+        context.getBean(EntityManagerFactory.class).getCache().evictAll();
+        context.getBean(UserDirectory.class).clear();
+        context.getBean(OwnershipIndex.class).rebuild();
+        context.getBean(AssignmentStatsService.class).rebuild();
+    }
+}
@@ -67,6 +67,7 @@ public class AssignmentCreateUpdateDeleteOkUnitTest {
         for (AssignmentDTO d : aList.getResponseBody()) {
             if (d.id()==a.getAssignmentId()) {
                 found=true;
+                assertEquals(a.getDueDate().toString(), d.dueDate());
                 break;
             }
         }
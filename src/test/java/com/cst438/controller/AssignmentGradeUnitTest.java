@@ -1,7 +1,9 @@
 package com.cst438.controller;
 
 import com.cst438.domain.*;
+import com.cst438.dto.AssignmentStatsDTO;
 import com.cst438.dto.GradeDTO;
+import com.cst438.dto.GradeUpdateResultDTO;
 import com.cst438.dto.LoginDTO;
 import com.cst438.service.RegistrarServiceProxy;
 import org.junit.jupiter.api.Test;
@@ -198,6 +200,124 @@ public class AssignmentGradeUnitTest {
     }
 
 
+    // put grades with one good and two bad rows
+    // the good row is updated and each row is reported
+    @Test
+    public void updateGradesReportsEachRow() {
+        login("ted@csumb.edu", "ted2025");
+        // create assignment for ted@csumb.edu section #1
+        Section s = sectionRepository.findById(1).orElse(null);
+        Assignment a = new Assignment();
+        a.setSection(s);
+        a.setTitle("updateGradesReportsEachRow");
+        a.setDueDate(Date.valueOf("2025-09-01"));
+        assignmentRepository.save(a);
+
+        GradeDTO[] dtolist = client.get().uri(String.format("/assignments/%s/grades",a.getAssignmentId()))
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GradeDTO[].class).returnResult().getResponseBody();
+
+        GradeDTO good = dtolist[0];
+        GradeDTO[] scores = new GradeDTO[] {
+                new GradeDTO(good.gradeId(), good.studentName(), good.studentEmail(),
+                        good.assignmentTitle(), good.courseId(), good.sectionId(), 88),
+                new GradeDTO(9999, "sam", "sam@csumb.edu", "assignment title", "cst489", 1, 70),
+                new GradeDTO(dtolist[1].gradeId(), dtolist[1].studentName(), dtolist[1].studentEmail(),
+                        dtolist[1].assignmentTitle(), dtolist[1].courseId(), dtolist[1].sectionId(), 101)
+        };
+
+        GradeUpdateResultDTO[] results = client.put().uri("/grades")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(scores)
+                .exchange()
+                .expectStatus().is4xxClientError()
+                .expectBody(GradeUpdateResultDTO[].class).returnResult().getResponseBody();
+
+        assertEquals(3, results.length, "a result is expected for each row");
+        assertTrue(results[0].updated());
+        assertFalse(results[1].updated());
+        assertFalse(results[2].updated());
+        assertEquals(88, gradeRepository.findById(good.gradeId()).orElse(null).getScore(), "valid row was not updated");
+        assertNull(gradeRepository.findById(dtolist[1].gradeId()).orElse(null).getScore(), "invalid score was saved");
+    }
+
+    // statistics follow score updates without reading the grades
+    @Test
+    public void assignmentStatsFollowScoreUpdates() {
+        login("ted@csumb.edu", "ted2025");
+        // create assignment for ted@csumb.edu section #1
+        Section s = sectionRepository.findById(1).orElse(null);
+        Assignment a = new Assignment();
+        a.setSection(s);
+        a.setTitle("assignmentStatsFollowScoreUpdates");
+        a.setDueDate(Date.valueOf("2025-09-01"));
+        assignmentRepository.save(a);
+
+        GradeDTO[] dtolist = client.get().uri(String.format("/assignments/%s/grades",a.getAssignmentId()))
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GradeDTO[].class).returnResult().getResponseBody();
+
+        AssignmentStatsDTO stats = getStats(a.getAssignmentId());
+        assertEquals(0, stats.count());
+        assertNull(stats.mean());
+
+        putScores(score(dtolist[0], 80), score(dtolist[1], 90));
+        stats = getStats(a.getAssignmentId());
+        assertEquals(2, stats.count());
+        assertEquals(85.0, stats.mean());
+        assertEquals(85.0, stats.median());
+        assertEquals(80, stats.min());
+        assertEquals(90, stats.max());
+        assertEquals(101, stats.histogram().length);
+        assertEquals(1, stats.histogram()[80]);
+
+        // change a score and clear another
+        putScores(score(dtolist[0], 100), score(dtolist[1], null));
+        stats = getStats(a.getAssignmentId());
+        assertEquals(1, stats.count());
+        assertEquals(100.0, stats.mean());
+        assertEquals(0, stats.histogram()[80]);
+        assertEquals(0, stats.histogram()[90]);
+
+        // only the instructor of the section can see the statistics
+        login("ted2@csumb.edu", "ted2025");
+        client.get().uri(String.format("/assignments/%s/stats",a.getAssignmentId()))
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().is4xxClientError();
+    }
+
+    private GradeDTO score(GradeDTO g, Integer score) {
+        return new GradeDTO(g.gradeId(), g.studentName(), g.studentEmail(),
+                g.assignmentTitle(), g.courseId(), g.sectionId(), score);
+    }
+
+    private void putScores(GradeDTO... scores) {
+        client.put().uri("/grades")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(scores)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private AssignmentStatsDTO getStats(int assignmentId) {
+        return client.get().uri(String.format("/assignments/%s/stats",assignmentId))
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AssignmentStatsDTO.class).returnResult().getResponseBody();
+    }
+
     private void login(String email, String password) {
         EntityExchangeResult<LoginDTO> login_dto =  client.get().uri("/login")
                 .headers(headers -> headers.setBasicAuth(email, password))
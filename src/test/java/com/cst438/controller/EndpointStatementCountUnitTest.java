@@ -0,0 +1,295 @@
+package com.cst438.controller;
+
+import com.cst438.TestData;
+import com.cst438.domain.*;
+import com.cst438.dto.AssignmentDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.GradeDTO;
+import com.cst438.dto.LoginDTO;
+import com.cst438.metrics.StatementCounter;
+import com.cst438.service.GradebookExportService;
+import com.cst438.service.RegistrarServiceProxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.OutputStream;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.cst438.StatementCountAssertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * The number of SQL statements run by each endpoint.  Every test starts from a new section
+ * with an empty second-level cache and freshly built in-memory indexes; where a count
+ * depends on what is cached, the request is made once before it is counted.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EndpointStatementCountUnitTest {
+
+    @Autowired
+    private WebTestClient client ;
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    String loginJWT;
+
+    @Autowired
+    AssignmentRepository assignmentRepository;
+    @Autowired
+    SectionRepository sectionRepository;
+    @Autowired
+    CourseRepository courseRepository;
+    @Autowired
+    TermRepository termRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+    @Autowired
+    GradebookExportService exportService;
+    @Autowired
+    StatementCounter counter;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ApplicationContext context;
+
+    // ids used for test data are well above the ids used in data.sql
+    static final int SECTION_NO = 3101;
+    static final int FIRST_ID = 3101;
+
+    Section section;
+    int assignmentId;
+
+    @BeforeEach
+    public void createTestData() {
+        section = fixture();
+        TestData.refresh(context);
+    }
+
+    @AfterEach
+    public void deleteTestData() {
+        TestData.deleteIdRange(context, FIRST_ID, FIRST_ID + 100);
+    }
+
+    @Test
+    public void instructorEndpoints() {
+        login("ted@csumb.edu", "ted2025");
+        assertStatementCount(1, get("/sections?year=2025&semester=Fall"));
+        assertStatementCount(1, get("/sections/" + SECTION_NO + "/gradebook"));
+
+        // the first time grade rows are created
+        get("/assignments/" + assignmentId + "/grades");
+        // the grade sheet, ownership comes from the index
+        assertStatementCount(1, get("/assignments/" + assignmentId + "/grades"));
+        assertStatementCount(0, get("/assignments/" + assignmentId + "/stats"));
+    }
+
+    @Test
+    public void headerWithoutBody() {
+        login("ted@csumb.edu", "ted2025");
+        EntityExchangeResult<Void> result = client.put().uri("/enrollments")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(enrollment(FIRST_ID, "A")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().isEmpty();
+        assertTrue(statementCount(result) > 0);
+    }
+
+    // associations are lazy and each endpoint loads what its DTOs need
+    @Test
+    public void enrollmentAndAssignmentEndpoints() {
+        login("ted@csumb.edu", "ted2025");
+        // enrollments with student, section, course and term in one statement
+        assertStatementCount(1, get("/sections/" + SECTION_NO + "/enrollments"));
+
+        // the enrollments in one select and both grade updates in one JDBC batch
+        EntityExchangeResult<Void> put = client.put().uri("/enrollments")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(enrollment(FIRST_ID, "B"), enrollment(FIRST_ID+1, "B+")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().isEmpty();
+        assertStatementCount(2, put);
+
+        // assignment rows built as AssignmentDTOs by one query
+        assertStatementCount(1, get("/sections/" + SECTION_NO + "/assignments"));
+    }
+
+    @Test
+    public void gradeUpdate() {
+        login("ted@csumb.edu", "ted2025");
+        // creates the grade rows
+        GradeDTO[] sheet = client.get().uri("/assignments/" + assignmentId + "/grades")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GradeDTO[].class).returnResult().getResponseBody();
+        assertEquals(2, sheet.length);
+
+        // the owners of the grades in one select, the scores in one JDBC batch and the
+        // statistics of the assignment read again after the commit
+        List<GradeDTO> scores = Arrays.stream(sheet)
+                .map(g -> new GradeDTO(g.gradeId(), null, null, null, null, 0, 80))
+                .toList();
+        EntityExchangeResult<byte[]> put = client.put().uri("/grades")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(scores)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult();
+        assertStatementCount(3, put);
+    }
+
+    // with the section, term and assignment in the second-level cache
+    @Test
+    public void assignmentWriteEndpoints() {
+        login("ted@csumb.edu", "ted2025");
+        // loads the section and its term into the cache
+        postAssignment("first");
+
+        // one insert, and a call to assignment_seq when hibernate has used up its block of ids
+        long sequence = assignmentSequence();
+        EntityExchangeResult<AssignmentDTO> post = postAssignment("second");
+        int sequenceCalls = (assignmentSequence() == sequence) ? 0 : 1;
+        assertStatementCount(1 + sequenceCalls, post);
+        int id = post.getResponseBody().id();
+
+        // the assignment is cached after the first update, the second one is a single update
+        putAssignment(id, "renamed once");
+        assertStatementCount(1, putAssignment(id, "renamed twice"));
+
+        // the assignment comes from the cache and its grades go by the foreign key cascade
+        EntityExchangeResult<byte[]> delete = client.delete().uri("/assignments/" + id)
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult();
+        assertStatementCount(1, delete);
+    }
+
+    @Test
+    public void studentAssignments() {
+        login("endpoint0@csumb.edu", "password");
+        // assignments, scores and course of the student's sections in one query
+        assertStatementCount(1, get("/assignments?year=2025&semester=Fall"));
+    }
+
+    // the CSV body is written on an async thread after the headers are sent, so its statements
+    // cannot be in the response header.  They are counted around the export instead.
+    @Test
+    public void gradebookCsv() throws Exception {
+        counter.start();
+        int count;
+        try {
+            exportService.writeCsv(SECTION_NO, OutputStream.nullOutputStream());
+        } finally {
+            count = counter.stop();
+        }
+        // the assignment columns and the cursor over the grade rows
+        assertEquals(2, count);
+    }
+
+    // a section of ted@csumb.edu with two students and an assignment
+    private Section fixture() {
+        Section s = new Section();
+        s.setSectionNo(SECTION_NO);
+        s.setSectionId(1);
+        s.setCourse(courseRepository.findById("cst489").orElse(null));
+        s.setTerm(termRepository.findByYearAndSemester(2025, "Fall"));
+        s.setInstructorEmail("ted@csumb.edu");
+        sectionRepository.save(s);
+        String password = new BCryptPasswordEncoder().encode("password");
+        for (int i=0; i<2; i++) {
+            User u = new User();
+            u.setId(FIRST_ID+i);
+            u.setName("endpoint"+i);
+            u.setEmail("endpoint"+i+"@csumb.edu");
+            u.setPassword(password);
+            u.setType("STUDENT");
+            userRepository.save(u);
+            Enrollment e = new Enrollment();
+            e.setEnrollmentId(FIRST_ID+i);
+            e.setSection(s);
+            e.setStudent(u);
+            enrollmentRepository.save(e);
+        }
+        Assignment a = new Assignment();
+        a.setSection(s);
+        a.setTitle("endpoint");
+        a.setDueDate(Date.valueOf("2025-09-01"));
+        assignmentRepository.save(a);
+        assignmentId = a.getAssignmentId();
+        return s;
+    }
+
+    // the next value of assignment_seq
+    private long assignmentSequence() {
+        return jdbcTemplate.queryForObject("select base_value from information_schema.sequences " +
+                "where sequence_schema='PUBLIC' and sequence_name='ASSIGNMENT_SEQ'", Long.class);
+    }
+
+    private EntityExchangeResult<AssignmentDTO> postAssignment(String title) {
+        return client.post().uri("/assignments")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new AssignmentDTO(0, title, "2025-09-15", "cst489", 1, SECTION_NO))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AssignmentDTO.class).returnResult();
+    }
+
+    private EntityExchangeResult<AssignmentDTO> putAssignment(int id, String title) {
+        return client.put().uri("/assignments")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new AssignmentDTO(id, title, "2025-09-22", "cst489", 1, SECTION_NO))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AssignmentDTO.class).returnResult();
+    }
+
+    private EnrollmentDTO enrollment(int enrollmentId, String grade) {
+        return new EnrollmentDTO(enrollmentId, grade, enrollmentId, "endpoint", "endpoint@csumb.edu", "cst489", null,
+                1, section.getSectionNo(), null, null, null, 4, 2025, "Fall");
+    }
+
+    private EntityExchangeResult<byte[]> get(String uri) {
+        return client.get().uri(uri)
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult();
+    }
+
+    private void login(String email, String password) {
+        EntityExchangeResult<LoginDTO> login_dto =  client.get().uri("/login")
+                .headers(headers -> headers.setBasicAuth(email, password))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult();
+
+        loginJWT = login_dto.getResponseBody().jwt();
+        assertNotNull(loginJWT);
+    }
+}
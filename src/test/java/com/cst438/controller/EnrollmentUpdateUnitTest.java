@@ -23,6 +23,7 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.params.shadow.com.univocity.parsers.common.NormalizedString.toArray;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -95,8 +96,8 @@ public class EnrollmentUpdateUnitTest {
             assertEquals("C", enrollment.getGrade());
         }
 
-        // verify that Registrar messages were sent (one for each Enrollment update)
-        verify(registrarService, times(2)).sendMessage(eq("updateEnrollment"), any());
+        // verify that one Registrar message was sent carrying both Enrollment updates
+        verify(registrarService, times(1)).sendBatchMessage(eq("updateEnrollments"), argThat(list -> list.size()==2));
 
         // fetch grades again and verify updated grades
         grades = client.get().uri("/sections/1/enrollments")
@@ -0,0 +1,150 @@
+package com.cst438.controller;
+
+import com.cst438.TestData;
+import com.cst438.domain.*;
+import com.cst438.dto.GradeImportResultDTO;
+import com.cst438.dto.LoginDTO;
+import com.cst438.service.RegistrarServiceProxy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class GradeImportUnitTest {
+
+    @Autowired
+    private WebTestClient client ;
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    String loginJWT;
+
+    @Autowired
+    AssignmentRepository assignmentRepository;
+    @Autowired
+    SectionRepository sectionRepository;
+    @Autowired
+    GradeRepository gradeRepository;
+    @Autowired
+    CourseRepository courseRepository;
+    @Autowired
+    TermRepository termRepository;
+    @Autowired
+    ApplicationContext context;
+
+    // sections 3301-3400 are created by these tests
+    @AfterEach
+    public void deleteTestData() {
+        TestData.deleteIdRange(context, 3301, 3401);
+    }
+
+    // good lines are imported and each bad line is reported
+    @Test
+    public void importGradesReportsBadLines() {
+        login("ted@csumb.edu", "ted2025");
+        // sam@csumb.edu and sam4@csumb.edu are enrolled in section 1 of ted@csumb.edu
+        Assignment a = createAssignment(1, "importGradesReportsBadLines");
+        Assignment other = createAssignment(6, "section of ted2");
+        String csv = "studentEmail,assignmentId,score\n" +
+                "sam@csumb.edu," + a.getAssignmentId() + ",70\n" +
+                "sam@csumb.edu," + a.getAssignmentId() + ",75\n" +          // last line for a student wins
+                "\"sam4@csumb.edu\"," + a.getAssignmentId() + ",\n" +       // quoted email, no score
+                "sam4@csumb.edu," + a.getAssignmentId() + ",101\n" +        // bad score
+                "sam1@csumb.edu," + a.getAssignmentId() + ",80\n" +         // not enrolled in section 1
+                "sam@csumb.edu," + other.getAssignmentId() + ",80\n" +      // not ted's assignment
+                "not a score line\n";
+
+        GradeImportResultDTO result = importCsv(csv)
+                .expectStatus().isBadRequest()
+                .expectBody(GradeImportResultDTO.class).returnResult().getResponseBody();
+
+        assertEquals(7, result.lines());
+        assertEquals(2, result.created(), "a grade row is created once per student");
+        assertEquals(4, result.errors().size());
+        assertEquals(5, result.errors().get(0).line());
+        assertEquals(6, result.errors().get(1).line());
+        assertEquals(7, result.errors().get(2).line());
+        assertEquals(8, result.errors().get(3).line());
+        assertEquals(75, gradeRepository.findByStudentEmailAndAssignmentId("sam@csumb.edu", a.getAssignmentId()).getScore());
+        Grade g = gradeRepository.findByStudentEmailAndAssignmentId("sam4@csumb.edu", a.getAssignmentId());
+        assertNotNull(g, "grade row was not created");
+        assertNull(g.getScore());
+
+        // a second file updates the existing rows
+        result = importCsv("sam4@csumb.edu," + a.getAssignmentId() + ",90\n")
+                .expectStatus().isOk()
+                .expectBody(GradeImportResultDTO.class).returnResult().getResponseBody();
+        assertEquals(1, result.updated());
+        assertEquals(0, result.created());
+        assertEquals(90, gradeRepository.findByStudentEmailAndAssignmentId("sam4@csumb.edu", a.getAssignmentId()).getScore());
+    }
+
+    // a section without an instructor belongs to nobody, its assignments are reported as invalid
+    @Test
+    public void sectionWithoutInstructor() {
+        login("ted@csumb.edu", "ted2025");
+        Section s = new Section();
+        s.setSectionNo(3301);
+        s.setSectionId(1);
+        s.setCourse(courseRepository.findById("cst489").orElse(null));
+        s.setTerm(termRepository.findByYearAndSemester(2025, "Fall"));
+        sectionRepository.save(s);
+        Assignment a = createAssignment(3301, "no instructor");
+
+        GradeImportResultDTO result = importCsv("sam@csumb.edu," + a.getAssignmentId() + ",80\n")
+                .expectStatus().isBadRequest()
+                .expectBody(GradeImportResultDTO.class).returnResult().getResponseBody();
+        assertEquals(1, result.errors().size());
+        assertEquals("invalid assignment id " + a.getAssignmentId(), result.errors().get(0).error());
+    }
+
+    private WebTestClient.ResponseSpec importCsv(String csv) {
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("file", new ByteArrayResource(csv.getBytes(StandardCharsets.UTF_8)))
+                .filename("scores.csv")
+                .contentType(new MediaType("text", "csv"));
+        return client.post().uri("/grades/import")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromMultipartData(builder.build()))
+                .exchange();
+    }
+
+    private Assignment createAssignment(int secNo, String title) {
+        Assignment a = new Assignment();
+        a.setSection(sectionRepository.findById(secNo).orElse(null));
+        a.setTitle(title);
+        a.setDueDate(Date.valueOf("2025-09-01"));
+        assignmentRepository.save(a);
+        return a;
+    }
+
+    private void login(String email, String password) {
+        EntityExchangeResult<LoginDTO> login_dto =  client.get().uri("/login")
+                .headers(headers -> headers.setBasicAuth(email, password))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult();
+
+        loginJWT = login_dto.getResponseBody().jwt();
+        assertNotNull(loginJWT);
+    }
+}
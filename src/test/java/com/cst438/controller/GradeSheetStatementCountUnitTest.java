@@ -0,0 +1,255 @@
+package com.cst438.controller;
+
+import com.cst438.TestData;
+import com.cst438.domain.*;
+import com.cst438.dto.GradeDTO;
+import com.cst438.dto.LoginDTO;
+import com.cst438.service.RegistrarServiceProxy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class GradeSheetStatementCountUnitTest {
+
+    @Autowired
+    private WebTestClient client ;
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    String loginJWT;
+
+    @Autowired
+    AssignmentRepository assignmentRepository;
+    @Autowired
+    SectionRepository sectionRepository;
+    @Autowired
+    CourseRepository courseRepository;
+    @Autowired
+    TermRepository termRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ApplicationContext context;
+
+    // ids used for test data are well above the ids used in data.sql
+    static final int SECTION_NO = 3001;
+    static final int FIRST_ID = 3001;
+
+    @AfterEach
+    public void deleteTestData() {
+        TestData.deleteIdRange(context, FIRST_ID, FIRST_ID + 100);
+    }
+
+    // the number of statements used to open a grade sheet must not depend
+    // on the number of students enrolled in the section.
+    @Test
+    public void gradeSheetStatementCountIndependentOfRosterSize() {
+        login("ted@csumb.edu", "ted2025");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // the statistics belong to the context shared with other tests, so they are put back as they were
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            checkStatementCounts(statistics);
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    private void checkStatementCounts(Statistics statistics) {
+        Section s = new Section();
+        s.setSectionNo(SECTION_NO);
+        s.setSectionId(1);
+        s.setCourse(courseRepository.findById("cst363").orElse(null));
+        s.setTerm(termRepository.findByYearAndSemester(2025, "Fall"));
+        s.setInstructorEmail("ted@csumb.edu");
+        sectionRepository.save(s);
+
+        // small roster, first time the grade sheet is opened
+        enrollStudents(s, 0, 3);
+        Assignment small = createAssignment(s, "small roster");
+        statistics.clear();
+        GradeDTO[] smallGrades = getGrades(small);
+        long smallCount = statistics.getPrepareStatementCount();
+        assertEquals(3, smallGrades.length, "incorrect number of grades returned");
+
+        // large roster, first time the grade sheet is opened
+        enrollStudents(s, 3, 60);
+        Assignment large = createAssignment(s, "large roster");
+        statistics.clear();
+        GradeDTO[] largeGrades = getGrades(large);
+        long largeCount = statistics.getPrepareStatementCount();
+        assertEquals(60, largeGrades.length, "incorrect number of grades returned");
+
+        assertEquals(smallCount, largeCount, "statement count grows with roster size");
+        // rows created by SQL take consecutive ids from the column default
+        IntSummaryStatistics ids = Arrays.stream(largeGrades).mapToInt(GradeDTO::gradeId).summaryStatistics();
+        assertEquals(largeGrades.length - 1, ids.getMax() - ids.getMin(), "grade ids are not consecutive");
+        for (GradeDTO g : largeGrades) {
+            assertNotEquals(0, g.gradeId(), "missing grade row was not created");
+            assertNull(g.score(), "new grade should have a null score");
+        }
+
+        // opening the grade sheet again does not create any rows
+        statistics.clear();
+        GradeDTO[] again = getGrades(large);
+        assertTrue(statistics.getPrepareStatementCount() < largeCount, "grade rows were created again");
+        for (int i=0; i<again.length; i++) {
+            assertEquals(largeGrades[i].gradeId(), again[i].gradeId(), "grade ids changed");
+        }
+    }
+
+    // creating the missing grade rows touches only the grade table, so cached
+    // sections are not evicted by it
+    @Test
+    public void creatingGradeRowsKeepsSectionsCached() {
+        login("ted@csumb.edu", "ted2025");
+        Section s = new Section();
+        s.setSectionNo(SECTION_NO);
+        s.setSectionId(1);
+        s.setCourse(courseRepository.findById("cst363").orElse(null));
+        s.setTerm(termRepository.findByYearAndSemester(2025, "Fall"));
+        s.setInstructorEmail("ted@csumb.edu");
+        sectionRepository.save(s);
+        enrollStudents(s, 0, 3);
+        Assignment a = createAssignment(s, "cached sections");
+
+        Cache cache = entityManagerFactory.getCache();
+        cache.evictAll();
+        sectionRepository.findById(1);
+        sectionRepository.findById(SECTION_NO);
+        assertTrue(cache.contains(Section.class, 1));
+        assertTrue(cache.contains(Section.class, SECTION_NO));
+
+        GradeDTO[] grades = getGrades(a);
+        assertEquals(3, grades.length);
+        for (GradeDTO g : grades) {
+            assertNotEquals(0, g.gradeId(), "missing grade row was not created");
+        }
+        assertTrue(cache.contains(Section.class, 1), "section region was evicted by the grade insert");
+        assertTrue(cache.contains(Section.class, SECTION_NO), "section region was evicted by the grade insert");
+    }
+
+    // instructors opening a new grade sheet at the same time create each grade row once
+    @Test
+    public void concurrentFirstOpenCreatesOneGradePerStudent() throws Exception {
+        login("ted@csumb.edu", "ted2025");
+        Section s = new Section();
+        s.setSectionNo(SECTION_NO);
+        s.setSectionId(1);
+        s.setCourse(courseRepository.findById("cst363").orElse(null));
+        s.setTerm(termRepository.findByYearAndSemester(2025, "Fall"));
+        s.setInstructorEmail("ted@csumb.edu");
+        sectionRepository.save(s);
+        enrollStudents(s, 0, 30);
+        Assignment a = createAssignment(s, "concurrent open");
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<GradeDTO[]>> sheets = new ArrayList<>();
+            for (int i=0; i<8; i++) {
+                sheets.add(pool.submit(() -> {
+                    start.await();
+                    return getGrades(a);
+                }));
+            }
+            start.countDown();
+            for (Future<GradeDTO[]> sheet : sheets) {
+                GradeDTO[] grades = sheet.get(30, TimeUnit.SECONDS);
+                assertEquals(30, grades.length);
+                for (GradeDTO g : grades) {
+                    assertNotEquals(0, g.gradeId(), "missing grade row was not created");
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(30, jdbcTemplate.queryForObject("select count(*) from grade where assignment_id=?",
+                Integer.class, a.getAssignmentId()), "duplicate grade rows");
+        // the unique key rejects a second grade for the same student and assignment
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "insert into grade (enrollment_id, assignment_id, score) values (?, ?, null)", FIRST_ID, a.getAssignmentId()));
+    }
+
+    private void enrollStudents(Section s, int from, int to) {
+        for (int i=from; i<to; i++) {
+            User u = new User();
+            u.setId(FIRST_ID+i);
+            u.setName("student"+i);
+            u.setEmail("gradesheet"+i+"@csumb.edu");
+            u.setPassword("password");
+            u.setType("STUDENT");
+            userRepository.save(u);
+            Enrollment e = new Enrollment();
+            e.setEnrollmentId(FIRST_ID+i);
+            e.setSection(s);
+            e.setStudent(u);
+            enrollmentRepository.save(e);
+        }
+    }
+
+    private Assignment createAssignment(Section s, String title) {
+        Assignment a = new Assignment();
+        a.setSection(s);
+        a.setTitle(title);
+        a.setDueDate(Date.valueOf("2025-09-01"));
+        assignmentRepository.save(a);
+        return a;
+    }
+
+    private GradeDTO[] getGrades(Assignment a) {
+        return client.get().uri(String.format("/assignments/%s/grades",a.getAssignmentId()))
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GradeDTO[].class).returnResult().getResponseBody();
+    }
+
+    private void login(String email, String password) {
+        EntityExchangeResult<LoginDTO> login_dto =  client.get().uri("/login")
+                .headers(headers -> headers.setBasicAuth(email, password))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult();
+
+        loginJWT = login_dto.getResponseBody().jwt();
+        assertNotNull(loginJWT);
+    }
+}
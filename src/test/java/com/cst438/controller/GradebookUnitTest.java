@@ -0,0 +1,157 @@
+package com.cst438.controller;
+
+import com.cst438.domain.*;
+import com.cst438.dto.GradeDTO;
+import com.cst438.dto.GradebookDTO;
+import com.cst438.dto.LoginDTO;
+import com.cst438.service.RegistrarServiceProxy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.sql.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class GradebookUnitTest {
+
+    @Autowired
+    private WebTestClient client ;
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    String loginJWT;
+
+    @Autowired
+    AssignmentRepository assignmentRepository;
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Test
+    public void getGradebookOk() {
+        login("ted@csumb.edu", "ted2025");
+        // create assignment for ted@csumb.edu section #1 and score the first student
+        Section s = sectionRepository.findById(1).orElse(null);
+        Assignment a = new Assignment();
+        a.setSection(s);
+        a.setTitle("gradebook");
+        a.setDueDate(Date.valueOf("2025-09-01"));
+        assignmentRepository.save(a);
+
+        GradeDTO[] grades = client.get().uri(String.format("/assignments/%s/grades",a.getAssignmentId()))
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GradeDTO[].class).returnResult().getResponseBody();
+        GradeDTO g = grades[0];
+        client.put().uri("/grades")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new GradeDTO[] { new GradeDTO(g.gradeId(), g.studentName(), g.studentEmail(),
+                        g.assignmentTitle(), g.courseId(), g.sectionId(), 91) })
+                .exchange()
+                .expectStatus().isOk();
+
+        GradebookDTO gradebook = client.get().uri("/sections/1/gradebook")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GradebookDTO.class).returnResult().getResponseBody();
+
+        // 2 students are enrolled in section 1
+        assertEquals(2, gradebook.enrollmentIds().length);
+        assertEquals(2, gradebook.scores().length);
+        int column = -1;
+        for (int j=0; j<gradebook.assignmentIds().length; j++) {
+            if (gradebook.assignmentIds()[j]==a.getAssignmentId()) {
+                column = j;
+            }
+        }
+        assertTrue(column >= 0, "assignment missing from gradebook");
+        assertEquals("gradebook", gradebook.assignmentTitles()[column]);
+        for (int i=0; i<gradebook.studentEmails().length; i++) {
+            assertEquals(gradebook.assignmentIds().length, gradebook.scores()[i].length);
+        }
+        // students are in the same order as the grade sheet
+        assertEquals(g.studentEmail(), gradebook.studentEmails()[0]);
+        assertEquals(91, gradebook.scores()[0][column]);
+        assertEquals(GradebookDTO.UNGRADED, gradebook.scores()[1][column]);
+    }
+
+    @Test
+    public void getGradebookFails() {
+        login("ted@csumb.edu", "ted2025");
+        // section does not exist
+        client.get().uri("/sections/9999/gradebook")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().is4xxClientError();
+        // section 6 belongs to ted2@csumb.edu
+        client.get().uri("/sections/6/gradebook")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().is4xxClientError();
+    }
+
+    @Test
+    public void getGradebookCsv() {
+        login("ted@csumb.edu", "ted2025");
+        String csv = client.get().uri("/sections/1/gradebook.csv")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith("text/csv")
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        GradebookDTO gradebook = client.get().uri("/sections/1/gradebook")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GradebookDTO.class).returnResult().getResponseBody();
+
+        // a header and a line per student with the same scores as the gradebook
+        String[] lines = csv.split("\r\n");
+        assertEquals(1 + gradebook.enrollmentIds().length, lines.length);
+        assertTrue(lines[0].startsWith("enrollmentId,studentName,studentEmail"));
+        for (int i=0; i<gradebook.enrollmentIds().length; i++) {
+            String[] fields = lines[i+1].split(",", -1);
+            assertEquals(3 + gradebook.assignmentIds().length, fields.length);
+            assertEquals(Integer.toString(gradebook.enrollmentIds()[i]), fields[0]);
+            assertEquals(gradebook.studentEmails()[i], fields[2]);
+            for (int j=0; j<gradebook.assignmentIds().length; j++) {
+                int score = gradebook.scores()[i][j];
+                assertEquals(score==GradebookDTO.UNGRADED ? "" : Integer.toString(score), fields[3+j]);
+            }
+        }
+
+        // section 6 belongs to ted2@csumb.edu
+        client.get().uri("/sections/6/gradebook.csv")
+                .headers(headers -> headers.setBearerAuth(loginJWT))
+                .exchange()
+                .expectStatus().is4xxClientError();
+    }
+
+    private void login(String email, String password) {
+        EntityExchangeResult<LoginDTO> login_dto =  client.get().uri("/login")
+                .headers(headers -> headers.setBasicAuth(email, password))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult();
+
+        loginJWT = login_dto.getResponseBody().jwt();
+        assertNotNull(loginJWT);
+    }
+}
@@ -0,0 +1,79 @@
+package com.cst438.controller;
+
+import com.cst438.dto.LoginDTO;
+import com.cst438.dto.RefreshDTO;
+import com.cst438.service.RegistrarServiceProxy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class LoginRefreshUnitTest {
+
+    @Autowired
+    private WebTestClient client ;
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    @Test
+    public void refreshIssuesNewToken() {
+        LoginDTO login = client.get().uri("/login")
+                .headers(headers -> headers.setBasicAuth("ted@csumb.edu", "ted2025"))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult().getResponseBody();
+        assertNotNull(login.jwt());
+        assertNotNull(login.refreshToken());
+
+        LoginDTO refreshed = client.post().uri("/login/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshDTO(login.refreshToken()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult().getResponseBody();
+        assertEquals("INSTRUCTOR", refreshed.role());
+        assertEquals(login.refreshToken(), refreshed.refreshToken());
+
+        // the new token works on instructor endpoints
+        client.get().uri("/sections?year=2025&semester=Fall")
+                .headers(headers -> headers.setBearerAuth(refreshed.jwt()))
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    public void refreshTokenIsNotAnAccessToken() {
+        LoginDTO login = client.get().uri("/login")
+                .headers(headers -> headers.setBasicAuth("ted@csumb.edu", "ted2025"))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult().getResponseBody();
+
+        client.get().uri("/sections?year=2025&semester=Fall")
+                .headers(headers -> headers.setBearerAuth(login.refreshToken()))
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        // and an access token cannot be refreshed
+        client.post().uri("/login/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshDTO(login.jwt()))
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        client.post().uri("/login/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RefreshDTO("not.a.token"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+}
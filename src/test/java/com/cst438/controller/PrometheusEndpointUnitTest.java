@@ -0,0 +1,62 @@
+package com.cst438.controller;
+
+import com.cst438.dto.LoginDTO;
+import com.cst438.service.RegistrarServiceProxy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// metrics are served in Prometheus format on the management port
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class PrometheusEndpointUnitTest {
+
+    @Autowired
+    private WebTestClient client ;
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    @LocalManagementPort
+    int managementPort;
+
+    @Test
+    public void scrapeMetrics() {
+        // a controller request so that there is a latency histogram to scrape
+        LoginDTO login = client.get().uri("/login")
+                .headers(headers -> headers.setBasicAuth("ted@csumb.edu", "ted2025"))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult().getResponseBody();
+
+        WebTestClient management = WebTestClient.bindToServer().baseUrl("http://localhost:" + managementPort).build();
+        String body = management.get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertNotNull(body);
+        assertTrue(body.contains("http_server_requests_seconds_bucket{"), "controller latency histogram missing");
+        assertTrue(body.contains("uri=\"/login\""), "controller method not tagged");
+        assertTrue(body.contains("hibernate_query_executions_total"), "hibernate statistics missing");
+        assertTrue(body.contains("hikaricp_connections_active"), "connection pool metrics missing");
+        assertTrue(body.contains("registrar_messages_received_total"), "registrar consumer metrics missing");
+        assertTrue(body.contains("registrar_outbox_published_total"), "registrar publisher metrics missing");
+
+        // the management endpoints are not on the application port, where every request needs a token
+        client.get().uri("/actuator/prometheus").exchange().expectStatus().isUnauthorized();
+        client.get().uri("/actuator/prometheus")
+                .headers(headers -> headers.setBearerAuth(login.jwt()))
+                .exchange()
+                .expectStatus().isNotFound();
+        // nothing but the actuator endpoints is served on the management port
+        management.get().uri("/sections?year=2025&semester=Fall").exchange().expectStatus().isForbidden();
+    }
+}
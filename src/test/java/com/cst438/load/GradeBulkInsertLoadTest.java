@@ -0,0 +1,128 @@
+package com.cst438.load;
+
+import com.cst438.TestData;
+import com.cst438.domain.*;
+import com.cst438.service.RegistrarServiceProxy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Measures bulk Grade creation with JDBC insert batching turned off (one insert
+ * statement per row, as with IDENTITY ids) and with the configured batch size.
+ * Runs only with mvn -Pload test.
+ * Each grade goes to its own assignment, since a student has one grade per assignment.
+ * Inserts are rolled back and the assignments are deleted so the database is unchanged.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class GradeBulkInsertLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GradeBulkInsertLoadTest.class);
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ApplicationContext context;
+
+    static final int ROWS = 5000;
+    static final int WARMUP_ROWS = 1000;
+    static final String TITLE = "bulk insert benchmark";
+
+    @AfterEach
+    public void deleteTestData() {
+        jdbcTemplate.update("delete from assignment where title=?", TITLE);
+        TestData.refresh(context);
+    }
+
+    @Test
+    public void bulkGradeInsertRate() {
+        // ROWS assignments in section 1, which sam@csumb.edu (enrollment 4) takes
+        jdbcTemplate.update("insert into assignment (section_no, title, due_date) " +
+                "select 1, ?, date '2025-09-01' from system_range(1, ?)", TITLE, ROWS);
+        List<Integer> assignmentIds = jdbcTemplate.queryForList(
+                "select assignment_id from assignment where title=? order by assignment_id", Integer.class, TITLE);
+        Enrollment e = enrollmentRepository.findById(4).orElse(null);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // the statistics belong to the context shared with other tests, so they are put back as they were
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            measure(statistics, assignmentIds, e);
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    private void measure(Statistics statistics, List<Integer> assignmentIds, Enrollment e) {
+        insertGrades(assignmentIds, e, WARMUP_ROWS, 1);
+        insertGrades(assignmentIds, e, WARMUP_ROWS, 50);
+
+        statistics.clear();
+        long unbatchedNanos = insertGrades(assignmentIds, e, ROWS, 1);
+        long unbatchedStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        long batchedNanos = insertGrades(assignmentIds, e, ROWS, 50);
+        long batchedStatements = statistics.getPrepareStatementCount();
+
+        log.info("grade inserts/sec  unbatched={} ({} statements)  batched={} ({} statements)",
+                ROWS * 1_000_000_000L / unbatchedNanos, unbatchedStatements,
+                ROWS * 1_000_000_000L / batchedNanos, batchedStatements);
+
+        assertTrue(unbatchedStatements >= ROWS, "expected one insert statement per row");
+        assertTrue(batchedStatements <= ROWS / 10, "inserts were not batched");
+    }
+
+    // insert rows Grade entities, one per assignment, and flush them. The transaction is rolled back.
+    private long insertGrades(List<Integer> assignmentIds, Enrollment e, int rows, int batchSize) {
+        return transactionTemplate.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            session.setJdbcBatchSize(batchSize);
+            Enrollment enrollment = entityManager.getReference(Enrollment.class, e.getEnrollmentId());
+            long start = System.nanoTime();
+            for (int i=0; i<rows; i++) {
+                Grade g = new Grade();
+                g.setAssignment(entityManager.getReference(Assignment.class, assignmentIds.get(i)));
+                g.setEnrollment(enrollment);
+                g.setScore(i % 101);
+                entityManager.persist(g);
+            }
+            entityManager.flush();
+            long elapsed = System.nanoTime() - start;
+            entityManager.clear();
+            status.setRollbackOnly();
+            return elapsed;
+        });
+    }
+}
@@ -0,0 +1,280 @@
+package com.cst438.load;
+
+import com.cst438.DataGenerator;
+import com.cst438.DataGeneratorProperties;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.GradeDTO;
+import com.cst438.service.RegistrarServiceProxy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * HTTP load test.  Runs only with mvn -Pload test.
+ * Instructors and students of a generated dataset log in through /login, then requests are
+ * started at a fixed rate with a mix of the main endpoints.  Latency is measured from the time
+ * a request was scheduled to start, so time spent waiting for a free client thread counts
+ * (no coordinated omission).  p50/p99/p999 latency and throughput are logged per endpoint.
+ *
+ * system properties
+ *   load.rate               requests started per second (200)
+ *   load.duration-seconds   measured time (30)
+ *   load.warmup-seconds     time before measuring starts (10)
+ *   load.threads            client threads (64)
+ *   load.students           students generated when the database has no generated data (20000)
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class GradebookLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GradebookLoadTest.class);
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    static final int USERS = 20;
+    static final String YEAR = "2025";
+    static final String SEMESTER = "Fall";
+
+    final ObjectMapper mapper = new ObjectMapper();
+    final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    // a logged in instructor and the rows it may change
+    record Instructor(String jwt, List<Integer> assignmentIds, List<GradeDTO> grades, List<EnrollmentDTO> enrollments) { }
+
+    // an endpoint of the mix with its weight and measurements
+    static class Endpoint {
+        final String name;
+        final int weight;
+        final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        final AtomicLong errors = new AtomicLong();
+
+        Endpoint(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+
+    @Test
+    public void mixedLoad() throws Exception {
+        int rate = Integer.getInteger("load.rate", 200);
+        int duration = Integer.getInteger("load.duration-seconds", 30);
+        int warmup = Integer.getInteger("load.warmup-seconds", 10);
+        int threads = Integer.getInteger("load.threads", 64);
+
+        generateData(Integer.getInteger("load.students", 20000));
+        List<Instructor> instructors = loginInstructors();
+        List<String> students = loginStudents();
+        assertFalse(instructors.isEmpty());
+        assertFalse(students.isEmpty());
+
+        Map<String, Endpoint> mix = new LinkedHashMap<>();
+        for (Endpoint e : List.of(
+                new Endpoint("GET /sections", 15),
+                new Endpoint("GET /assignments", 35),
+                new Endpoint("GET /assignments/{id}/grades", 25),
+                new Endpoint("PUT /grades", 15),
+                new Endpoint("PUT /enrollments", 10))) {
+            mix.put(e.name, e);
+        }
+        int totalWeight = mix.values().stream().mapToInt(e -> e.weight).sum();
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Random random = new Random(438);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+        for (long scheduled = start; scheduled < end; scheduled += interval) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int pick = random.nextInt(totalWeight);
+            Endpoint endpoint = null;
+            for (Endpoint e : mix.values()) {
+                pick -= e.weight;
+                if (pick < 0) {
+                    endpoint = e;
+                    break;
+                }
+            }
+            HttpRequest request = request(endpoint.name, instructors.get(random.nextInt(instructors.size())),
+                    students.get(random.nextInt(students.size())), random);
+            boolean measured = scheduled >= measureFrom;
+            long intended = scheduled;
+            Endpoint e = endpoint;
+            workers.execute(() -> {
+                boolean ok;
+                try {
+                    ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                } catch (Exception ex) {
+                    ok = false;
+                }
+                if (measured) {
+                    e.latency.recordValue(System.nanoTime() - intended);
+                    if (!ok) {
+                        e.errors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(2, TimeUnit.MINUTES), "requests did not finish");
+
+        report(mix.values(), rate, duration);
+        for (Endpoint e : mix.values()) {
+            assertEquals(0, e.errors.get(), "failed requests for " + e.name);
+        }
+    }
+
+    private HttpRequest request(String endpoint, Instructor instructor, String studentJwt, Random random) throws Exception {
+        String base = "http://localhost:" + port;
+        switch (endpoint) {
+            case "GET /sections":
+                return get(base + "/sections?year=" + YEAR + "&semester=" + SEMESTER, instructor.jwt());
+            case "GET /assignments":
+                return get(base + "/assignments?year=" + YEAR + "&semester=" + SEMESTER, studentJwt);
+            case "GET /assignments/{id}/grades":
+                int assignmentId = instructor.assignmentIds().get(random.nextInt(instructor.assignmentIds().size()));
+                return get(base + "/assignments/" + assignmentId + "/grades", instructor.jwt());
+            case "PUT /grades":
+                List<GradeDTO> grades = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    GradeDTO g = instructor.grades().get(random.nextInt(instructor.grades().size()));
+                    grades.add(new GradeDTO(g.gradeId(), null, null, null, null, 0, random.nextInt(101)));
+                }
+                return put(base + "/grades", instructor.jwt(), mapper.writeValueAsString(grades));
+            case "PUT /enrollments":
+                EnrollmentDTO e = instructor.enrollments().get(random.nextInt(instructor.enrollments().size()));
+                EnrollmentDTO graded = new EnrollmentDTO(e.enrollmentId(), String.valueOf("ABCDF".charAt(random.nextInt(5))),
+                        e.studentId(), e.name(), e.email(), e.courseId(), e.title(), e.sectionId(), e.sectionNo(),
+                        e.building(), e.room(), e.times(), e.credits(), e.year(), e.semester());
+                return put(base + "/enrollments", instructor.jwt(), mapper.writeValueAsString(List.of(graded)));
+            default:
+                throw new IllegalArgumentException(endpoint);
+        }
+    }
+
+    private HttpRequest get(String uri, String jwt) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Authorization", "Bearer " + jwt)
+                .header("Accept", "application/json")
+                .GET().build();
+    }
+
+    private HttpRequest put(String uri, String jwt, String json) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Authorization", "Bearer " + jwt)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private void report(Iterable<Endpoint> endpoints, int rate, int duration) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%nload %d req/s for %d s%n", rate, duration));
+        sb.append(String.format("%-30s %8s %8s %9s %9s %9s %9s %7s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors"));
+        for (Endpoint e : endpoints) {
+            Histogram h = e.latency;
+            sb.append(String.format("%-30s %8d %8.1f %9.2f %9.2f %9.2f %9.2f %7d%n",
+                    e.name, h.getTotalCount(), (double) h.getTotalCount() / duration,
+                    h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(99) / 1e6,
+                    h.getValueAtPercentile(99.9) / 1e6, h.getMaxValue() / 1e6, e.errors.get()));
+        }
+        log.info("{}", sb);
+    }
+
+    // generate a dataset unless an earlier test already did
+    private void generateData(int students) {
+        Integer generated = jdbcTemplate.queryForObject("select count(*) from section where section_no >= ?",
+                Integer.class, DataGenerator.FIRST_ID);
+        if (generated == 0) {
+            new DataGenerator(jdbcTemplate,
+                    new DataGeneratorProperties(students, students / 25, 10, 1, 4, 10, 438)).generate();
+        }
+    }
+
+    private List<Instructor> loginInstructors() throws Exception {
+        List<String> emails = jdbcTemplate.queryForList(
+                "select distinct instructor_email from section where section_no >= ? order by instructor_email limit ?",
+                String.class, DataGenerator.FIRST_ID, USERS);
+        List<Instructor> instructors = new ArrayList<>();
+        for (String email : emails) {
+            List<Integer> assignmentIds = jdbcTemplate.queryForList(
+                    "select a.assignment_id from assignment a join section s on s.section_no=a.section_no " +
+                    "where s.instructor_email=?", Integer.class, email);
+            List<GradeDTO> grades = jdbcTemplate.query(
+                    "select g.grade_id from grade g join assignment a on a.assignment_id=g.assignment_id " +
+                    "join section s on s.section_no=a.section_no where s.instructor_email=? limit 500",
+                    (rs, n) -> new GradeDTO(rs.getInt(1), null, null, null, null, 0, null), email);
+            List<EnrollmentDTO> enrollments = jdbcTemplate.query(
+                    "select e.enrollment_id, e.user_id, s.section_no from enrollment e " +
+                    "join section s on s.section_no=e.section_no where s.instructor_email=? limit 500",
+                    (rs, n) -> new EnrollmentDTO(rs.getInt(1), null, rs.getInt(2), null, null, null, null,
+                            0, rs.getInt(3), null, null, null, 0, 2025, SEMESTER), email);
+            if (!assignmentIds.isEmpty() && !grades.isEmpty() && !enrollments.isEmpty()) {
+                instructors.add(new Instructor(login(email), assignmentIds, grades, enrollments));
+            }
+        }
+        return instructors;
+    }
+
+    private List<String> loginStudents() throws Exception {
+        List<String> emails = jdbcTemplate.queryForList(
+                "select u.email from user_table u where u.id >= ? and u.type='STUDENT' order by u.id limit ?",
+                String.class, DataGenerator.FIRST_ID, USERS);
+        List<String> jwts = new ArrayList<>();
+        for (String email : emails) {
+            jwts.add(login(email));
+        }
+        return jwts;
+    }
+
+    private String login(String email) throws Exception {
+        String basic = Base64.getEncoder().encodeToString((email + ":password").getBytes(StandardCharsets.UTF_8));
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+                .header("Authorization", "Basic " + basic)
+                .GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "login failed for " + email);
+        JsonNode body = mapper.readTree(response.body());
+        return body.get("jwt").asText();
+    }
+}
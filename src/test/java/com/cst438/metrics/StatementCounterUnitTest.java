@@ -0,0 +1,33 @@
+package com.cst438.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCounterUnitTest {
+
+    // statements run with JdbcTemplate through the wrapped DataSource are counted,
+    // a JDBC batch as one statement
+    @Test
+    public void countsJdbcTemplateStatements() {
+        StatementCounter counter = new StatementCounter();
+        DataSource dataSource = (DataSource) counter.postProcessAfterInitialization(
+                new DriverManagerDataSource("jdbc:h2:mem:statementcounter;DB_CLOSE_DELAY=-1"), "dataSource");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table if not exists counted (id int primary key)");
+        jdbc.update("delete from counted");
+        assertEquals(0, counter.count(), "counted before start()");
+
+        counter.start();
+        jdbc.update("insert into counted values (?)", 1);
+        jdbc.batchUpdate("insert into counted values (?)", List.of(new Object[] {2}, new Object[] {3}, new Object[] {4}));
+        assertEquals(4, jdbc.queryForObject("select count(*) from counted", Integer.class));
+        assertEquals(3, counter.stop());
+        assertEquals(0, counter.count());
+    }
+}
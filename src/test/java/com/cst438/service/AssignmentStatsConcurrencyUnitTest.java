@@ -0,0 +1,175 @@
+package com.cst438.service;
+
+import com.cst438.TestData;
+import com.cst438.domain.*;
+import com.cst438.dto.AssignmentStatsDTO;
+import com.cst438.dto.GradeDTO;
+import com.cst438.dto.LoginDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Score statistics match the grade table after concurrent PUT /grades on the same grades
+ * while the statistics are being rebuilt.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class AssignmentStatsConcurrencyUnitTest {
+
+    @Autowired
+    private WebTestClient client ;
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    @Autowired
+    AssignmentStatsService statsService;
+    @Autowired
+    SectionRepository sectionRepository;
+    @Autowired
+    CourseRepository courseRepository;
+    @Autowired
+    TermRepository termRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+    @Autowired
+    AssignmentRepository assignmentRepository;
+    @Autowired
+    GradeRepository gradeRepository;
+    @Autowired
+    ApplicationContext context;
+
+    // ids used for test data are well above the ids used in data.sql
+    static final int SECTION_NO = 3201;
+    static final int FIRST_ID = 3201;
+    static final int STUDENTS = 4;
+    static final int THREADS = 8;
+    static final int UPDATES = 25;
+
+    @AfterEach
+    public void deleteTestData() {
+        TestData.deleteIdRange(context, FIRST_ID, FIRST_ID + 100);
+    }
+
+    @Test
+    public void statsMatchGradesAfterConcurrentUpdates() throws Exception {
+        String jwt = login("ted@csumb.edu", "ted2025");
+        int assignmentId = createAssignmentWithGrades();
+        GradeDTO[] sheet = client.get().uri("/assignments/" + assignmentId + "/grades")
+                .headers(headers -> headers.setBearerAuth(jwt))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GradeDTO[].class).returnResult().getResponseBody();
+        assertEquals(STUDENTS, sheet.length);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            Future<?> rebuilds = pool.submit(() -> {
+                while (running.get()) {
+                    statsService.rebuild();
+                }
+            });
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t=0; t<THREADS; t++) {
+                Random random = new Random(t);
+                writers.add(pool.submit(() -> {
+                    for (int i=0; i<UPDATES; i++) {
+                        // every writer changes the same grades
+                        List<GradeDTO> update = new ArrayList<>();
+                        for (GradeDTO g : sheet) {
+                            Integer score = random.nextInt(5) == 0 ? null : random.nextInt(101);
+                            update.add(new GradeDTO(g.gradeId(), null, null, null, null, 0, score));
+                        }
+                        client.put().uri("/grades")
+                                .headers(headers -> headers.setBearerAuth(jwt))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .bodyValue(update)
+                                .exchange()
+                                .expectStatus().isOk();
+                    }
+                }));
+            }
+            for (Future<?> f : writers) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            rebuilds.get(60, TimeUnit.SECONDS);
+        } finally {
+            running.set(false);
+            pool.shutdownNow();
+        }
+
+        int[] expected = new int[101];
+        int count = 0;
+        for (Object[] row : gradeRepository.countScoresByAssignmentIds(List.of(assignmentId))) {
+            expected[(Integer) row[1]] = ((Long) row[2]).intValue();
+            count += ((Long) row[2]).intValue();
+        }
+        AssignmentStatsDTO stats = statsService.getStats(assignmentId);
+        assertEquals(count, stats.count(), "graded count drifted from the grade table");
+        assertArrayEquals(expected, stats.histogram(), "histogram drifted from the grade table");
+    }
+
+    // a section of ted@csumb.edu with STUDENTS students and an assignment with a grade row for each
+    private int createAssignmentWithGrades() {
+        Section s = new Section();
+        s.setSectionNo(SECTION_NO);
+        s.setSectionId(1);
+        s.setCourse(courseRepository.findById("cst363").orElse(null));
+        s.setTerm(termRepository.findByYearAndSemester(2025, "Fall"));
+        s.setInstructorEmail("ted@csumb.edu");
+        sectionRepository.save(s);
+        for (int i=0; i<STUDENTS; i++) {
+            User u = new User();
+            u.setId(FIRST_ID+i);
+            u.setName("stats"+i);
+            u.setEmail("stats"+i+"@csumb.edu");
+            u.setPassword("password");
+            u.setType("STUDENT");
+            userRepository.save(u);
+            Enrollment e = new Enrollment();
+            e.setEnrollmentId(FIRST_ID+i);
+            e.setSection(s);
+            e.setStudent(u);
+            enrollmentRepository.save(e);
+        }
+        Assignment a = new Assignment();
+        a.setSection(s);
+        a.setTitle("concurrent stats");
+        a.setDueDate(Date.valueOf("2025-09-01"));
+        assignmentRepository.save(a);
+        return a.getAssignmentId();
+    }
+
+    private String login(String email, String password) {
+        LoginDTO login = client.get().uri("/login")
+                .headers(headers -> headers.setBasicAuth(email, password))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult().getResponseBody();
+        assertNotNull(login.jwt());
+        return login.jwt();
+    }
+}
@@ -0,0 +1,154 @@
+package com.cst438.service;
+
+import com.cst438.TestData;
+import com.cst438.dto.LoginDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * The CSV export writes lines while it is still reading rows from the cursor instead of
+ * collecting the gradebook first.  gradebook.export.rows counts the rows the export has read,
+ * so the count seen when the first bytes reach the output shows how much was read before
+ * anything was written.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class GradebookExportStreamingUnitTest {
+
+    @Autowired
+    private WebTestClient client ;
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    @Autowired
+    GradebookExportService exportService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    MeterRegistry registry;
+    @Autowired
+    ApplicationContext context;
+
+    // ids used for test data are well above the ids used in data.sql and by the sequences.
+    // the section and its students share one id range, removed after each test.
+    static final int SECTION_NO = 20001;
+    static final int FIRST_ID = 20001;
+    static final int FIRST_ASSIGNMENT_ID = 900001;
+    static final int FIRST_GRADE_ID = 5000001;
+    static final int STUDENTS = 500;
+    static final int ASSIGNMENTS = 20;
+
+    @BeforeEach
+    public void createTestData() {
+        createSection();
+    }
+
+    @AfterEach
+    public void deleteTestData() {
+        TestData.deleteIdRange(context, FIRST_ID, FIRST_ID + STUDENTS + 1);
+    }
+
+    @Test
+    public void linesWrittenBeforeCursorIsExhausted() throws Exception {
+        double before = rowsRead();
+        List<Double> readAtWrite = new ArrayList<>();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                readAtWrite.add(rowsRead() - before);
+            }
+            @Override
+            public void write(byte[] b, int off, int len) {
+                readAtWrite.add(rowsRead() - before);
+            }
+        };
+        exportService.writeCsv(SECTION_NO, out);
+
+        int rows = STUDENTS * ASSIGNMENTS;
+        assertEquals(rows, rowsRead() - before, "incorrect number of rows read");
+        assertFalse(readAtWrite.isEmpty(), "nothing written");
+        assertTrue(readAtWrite.get(0) < rows / 2,
+                "first write after " + readAtWrite.get(0) + " of " + rows + " rows were read");
+        assertTrue(readAtWrite.stream().filter(n -> n < rows).count() > 1,
+                "output was not written while rows were read");
+    }
+
+    @Test
+    public void endpointStreamsCsv() {
+        LoginDTO login = client.get().uri("/login")
+                .headers(headers -> headers.setBasicAuth("ted@csumb.edu", "ted2025"))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoginDTO.class).returnResult().getResponseBody();
+        double before = rowsRead();
+        String csv = client.get().uri("/sections/" + SECTION_NO + "/gradebook.csv")
+                .headers(headers -> headers.setBearerAuth(login.jwt()))
+                .exchange()
+                .expectStatus().isOk()
+                // the length is not known up front when the body is streamed
+                .expectHeader().doesNotExist("Content-Length")
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertEquals(STUDENTS * ASSIGNMENTS, rowsRead() - before);
+        String[] lines = csv.split("\r\n");
+        assertEquals(1 + STUDENTS, lines.length);
+        assertTrue(lines[0].startsWith("enrollmentId,studentName,studentEmail,\"assignment, 0\""));
+        // students are ordered by name: export0, export1, export10, ...
+        String[] first = lines[1].split(",", -1);
+        assertEquals(Integer.toString(FIRST_ID), first[0]);
+        assertEquals(3 + ASSIGNMENTS, first.length);
+        for (int j=0; j<ASSIGNMENTS; j++) {
+            assertEquals(Integer.toString(j % 101), first[3+j]);
+        }
+    }
+
+    private double rowsRead() {
+        return registry.counter("gradebook.export.rows").count();
+    }
+
+    // a section of ted@csumb.edu with STUDENTS students and ASSIGNMENTS assignments, every score set
+    private void createSection() {
+        Integer termId = jdbcTemplate.queryForObject("select min(term_id) from term", Integer.class);
+        jdbcTemplate.update("insert into section (section_no, course_id, section_id, term_id, instructor_email) " +
+                "values (?, 'cst363', 9, ?, 'ted@csumb.edu')", SECTION_NO, termId);
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> enrollments = new ArrayList<>();
+        for (int i=0; i<STUDENTS; i++) {
+            users.add(new Object[] {FIRST_ID+1+i, "export"+i, "export"+i+"@csumb.edu", "password", "STUDENT"});
+            enrollments.add(new Object[] {FIRST_ID+i, SECTION_NO, FIRST_ID+1+i});
+        }
+        jdbcTemplate.batchUpdate("insert into user_table (id, name, email, password, type) values (?,?,?,?,?)", users);
+        jdbcTemplate.batchUpdate("insert into enrollment (enrollment_id, section_no, user_id) values (?,?,?)", enrollments);
+        List<Object[]> assignments = new ArrayList<>();
+        for (int j=0; j<ASSIGNMENTS; j++) {
+            assignments.add(new Object[] {FIRST_ASSIGNMENT_ID+j, SECTION_NO, "assignment, "+j,
+                    LocalDate.of(2025, 9, 1).plusDays(j)});
+        }
+        jdbcTemplate.batchUpdate("insert into assignment (assignment_id, section_no, title, due_date) values (?,?,?,?)", assignments);
+        List<Object[]> grades = new ArrayList<>();
+        for (int i=0; i<STUDENTS; i++) {
+            for (int j=0; j<ASSIGNMENTS; j++) {
+                grades.add(new Object[] {FIRST_GRADE_ID+i*ASSIGNMENTS+j, FIRST_ID+i, FIRST_ASSIGNMENT_ID+j, (i+j)%101});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into grade (grade_id, enrollment_id, assignment_id, score) values (?,?,?,?)", grades);
+    }
+}
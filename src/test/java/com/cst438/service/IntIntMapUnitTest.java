@@ -0,0 +1,34 @@
+package com.cst438.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntIntMapUnitTest {
+
+    // random puts and removes give the same answers as a HashMap
+    @Test
+    public void matchesHashMap() {
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(438);
+        for (int i=0; i<200_000; i++) {
+            int key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key=0; key<5000; key++) {
+            assertEquals(expected.getOrDefault(key, IntIntMap.MISSING), map.get(key), "key " + key);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.cst438.service;
+
+import com.cst438.domain.OutboxMessage;
+import com.cst438.domain.OutboxRepository;
+import com.cst438.dto.EnrollmentDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/*
+ * Registrar messages are written to the outbox and relayed to the in-memory broker.
+ * Runs without Spring, a database or RabbitMQ.
+ */
+public class OutboxRelayUnitTest {
+
+    // outbox_message and outbox_lease kept in a list
+    static class InMemoryOutbox extends OutboxRepository {
+        final List<OutboxMessage> rows = new ArrayList<>();
+        long nextId = 1;
+
+        InMemoryOutbox() {
+            super(null);
+        }
+
+        @Override
+        public synchronized void add(String queue, String message) {
+            rows.add(new OutboxMessage(nextId++, queue, message, new Timestamp(System.currentTimeMillis())));
+        }
+
+        @Override
+        public synchronized List<OutboxMessage> findOldest(int limit) {
+            return new ArrayList<>(rows.subList(0, Math.min(limit, rows.size())));
+        }
+
+        @Override
+        public synchronized void deleteByIds(List<Long> ids) {
+            rows.removeIf(m -> ids.contains(m.id()));
+        }
+
+        @Override
+        public boolean acquireLease(String owner, long leaseMs) {
+            return true;
+        }
+
+        @Override
+        public synchronized long count() {
+            return rows.size();
+        }
+
+        @Override
+        public synchronized Timestamp oldestCreatedAt() {
+            return rows.isEmpty() ? null : rows.get(0).createdAt();
+        }
+    }
+
+    OutboxRepository outboxRepository;
+    InMemoryMessagePublisher broker;
+    SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        outboxRepository = mock(OutboxRepository.class);
+        when(outboxRepository.acquireLease(anyString(), anyLong())).thenReturn(true);
+        broker = new InMemoryMessagePublisher();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void batchMessageWrittenToOutboxAndRelayWokenAfterCommit() {
+        RegistrarServiceProxy registrar = new RegistrarServiceProxy();
+        registrar.outboxRepository = outboxRepository;
+        registrar.outboxRelay = mock(OutboxRelay.class);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registrar.sendBatchMessage("updateEnrollments", List.of(enrollment(1, "A"), enrollment(2, "B")));
+            verify(outboxRepository).add(eq("registrar_service"), startsWith("updateEnrollments [{"));
+            verify(registrar.outboxRelay, never()).wakeUp();
+
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCommit();
+            }
+            verify(registrar.outboxRelay).wakeUp();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void relayPublishesInOrderAndDeletesConfirmed() throws Exception {
+        when(outboxRepository.findOldest(anyInt())).thenReturn(List.of(
+                message(1, "updateEnrollments [1]"),
+                message(2, "updateEnrollments [2]"),
+                message(3, "updateEnrollments [3]")));
+        OutboxRelay relay = new OutboxRelay(outboxRepository, broker, properties(), registry);
+
+        assertEquals(3, relay.relayBatch());
+        assertEquals(List.of("updateEnrollments [1]", "updateEnrollments [2]", "updateEnrollments [3]"),
+                broker.drain("registrar_service"));
+        verify(outboxRepository).deleteByIds(List.of(1L, 2L, 3L));
+        assertEquals(3.0, registry.counter("registrar.outbox.published").count());
+    }
+
+    // the whole batch is published before the relay waits for the first confirm
+    @Test
+    public void relayPublishesBatchBeforeWaitingForConfirms() throws Exception {
+        when(outboxRepository.findOldest(anyInt())).thenReturn(List.of(
+                message(1, "first"),
+                message(2, "second"),
+                message(3, "third")));
+        List<CompletableFuture<Boolean>> confirms = new CopyOnWriteArrayList<>();
+        MessagePublisher unconfirmed = (queue, msg) -> {
+            CompletableFuture<Boolean> confirm = new CompletableFuture<>();
+            confirms.add(confirm);
+            return confirm;
+        };
+        OutboxRelay relay = new OutboxRelay(outboxRepository, unconfirmed, properties(), registry);
+
+        // the confirms arrive while the relay waits for them
+        CompletableFuture<Integer> delivered = CompletableFuture.supplyAsync(() -> {
+            try {
+                return relay.relayBatch();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        while (confirms.size() < 3 && !delivered.isDone()) {
+            Thread.sleep(5);
+        }
+        assertEquals(3, confirms.size(), "publishing waited for a confirm");
+        confirms.forEach(c -> c.complete(true));
+        assertEquals(3, delivered.get(10, TimeUnit.SECONDS));
+        verify(outboxRepository).deleteByIds(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    public void relayDeletesUpToFirstUnconfirmedMessage() throws Exception {
+        when(outboxRepository.findOldest(anyInt())).thenReturn(List.of(
+                message(1, "first"),
+                message(2, "rejected"),
+                message(3, "third")));
+        List<String> attempts = new ArrayList<>();
+        MessagePublisher nackSecond = (queue, msg) -> {
+            attempts.add(msg);
+            return CompletableFuture.completedFuture(!msg.equals("rejected"));
+        };
+        OutboxRelay relay = new OutboxRelay(outboxRepository, nackSecond, properties(), registry);
+
+        assertEquals(1, relay.relayBatch());
+        assertEquals(List.of("first", "rejected", "third"), attempts);
+        // the confirmed message after the rejected one stays in the outbox
+        verify(outboxRepository).deleteByIds(List.of(1L));
+        assertEquals(1.0, registry.counter("registrar.outbox.failed").count());
+    }
+
+    // a confirm that does not arrive in time is treated like a rejection
+    @Test
+    public void relayStopsAtConfirmTimeout() throws Exception {
+        when(outboxRepository.findOldest(anyInt())).thenReturn(List.of(
+                message(1, "first"),
+                message(2, "lost"),
+                message(3, "third")));
+        MessagePublisher loseSecond = (queue, msg) -> msg.equals("lost")
+                ? new CompletableFuture<>() : CompletableFuture.completedFuture(true);
+        OutboxRelay relay = new OutboxRelay(outboxRepository, loseSecond,
+                new OutboxProperties(false, 100, 5000, 100, 30000), registry);
+
+        assertEquals(1, relay.relayBatch());
+        verify(outboxRepository).deleteByIds(List.of(1L));
+        assertEquals(1.0, registry.counter("registrar.outbox.failed").count());
+    }
+
+    // a message in the middle is rejected once: the messages from it on are sent again in order,
+    // so the last copy of every message reaches the registrar in outbox order
+    @Test
+    public void retryKeepsOrderAfterRejectedMessage() throws Exception {
+        InMemoryOutbox outbox = new InMemoryOutbox();
+        for (int i=1; i<=5; i++) {
+            outbox.add("registrar_service", "m" + i);
+        }
+        List<String> attempts = new ArrayList<>();
+        List<String> received = new ArrayList<>();
+        boolean[] rejected = {false};
+        MessagePublisher rejectM3Once = (queue, msg) -> {
+            attempts.add(msg);
+            if (msg.equals("m3") && !rejected[0]) {
+                rejected[0] = true;
+                return CompletableFuture.completedFuture(false);
+            }
+            received.add(msg);
+            return CompletableFuture.completedFuture(true);
+        };
+        OutboxRelay relay = new OutboxRelay(outbox, rejectM3Once, properties(), registry);
+
+        assertEquals(2, relay.relayBatch());
+        assertEquals(3, relay.relayBatch());
+        assertEquals(0, relay.relayBatch());
+        assertEquals(List.of("m1", "m2", "m3", "m4", "m5", "m3", "m4", "m5"), attempts);
+        assertEquals(List.of("m1", "m2", "m4", "m5", "m3", "m4", "m5"), received);
+        assertEquals(List.of("m1", "m2", "m3", "m4", "m5"), lastCopies(received));
+        assertTrue(outbox.rows.isEmpty());
+    }
+
+    // a node that does not hold the lease publishes nothing
+    @Test
+    public void relayWaitsForLease() throws Exception {
+        when(outboxRepository.acquireLease(anyString(), anyLong())).thenReturn(false);
+        when(outboxRepository.findOldest(anyInt())).thenReturn(List.of(message(1, "first")));
+        OutboxRelay relay = new OutboxRelay(outboxRepository, broker, properties(), registry);
+
+        assertEquals(0, relay.relayBatch());
+        assertTrue(broker.getMessages("registrar_service").isEmpty());
+        verify(outboxRepository, never()).findOldest(anyInt());
+    }
+
+    // grade updates of one request reach the broker as one message, and only after commit
+    @Test
+    public void oneBatchedMessageRelayedAfterCommit() throws Exception {
+        InMemoryOutbox outbox = new InMemoryOutbox();
+        OutboxRelay relay = new OutboxRelay(outbox, broker, properties(), registry);
+        RegistrarServiceProxy registrar = new RegistrarServiceProxy();
+        registrar.outboxRepository = outbox;
+        registrar.outboxRelay = spy(relay);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registrar.sendBatchMessage("updateEnrollments", List.of(enrollment(1, "A"), enrollment(2, "B")));
+            verify(registrar.outboxRelay, never()).wakeUp();
+            for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+                s.afterCommit();
+            }
+            verify(registrar.outboxRelay).wakeUp();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(broker.getMessages("registrar_service").isEmpty(), "message sent before the relay ran");
+
+        assertEquals(1, relay.relayBatch());
+        List<String> messages = broker.drain("registrar_service");
+        assertEquals(1, messages.size(), "expected one message for the batch");
+        String[] parts = messages.get(0).split(" ", 2);
+        assertEquals("updateEnrollments", parts[0]);
+        EnrollmentDTO[] dtos = new ObjectMapper().readValue(parts[1], EnrollmentDTO[].class);
+        assertEquals(2, dtos.length);
+        assertEquals("A", dtos[0].grade());
+        assertEquals("B", dtos[1].grade());
+    }
+
+    // the messages in the order of their last copy
+    private static List<String> lastCopies(List<String> received) {
+        List<String> result = new ArrayList<>();
+        for (int i=0; i<received.size(); i++) {
+            if (received.lastIndexOf(received.get(i)) == i) {
+                result.add(received.get(i));
+            }
+        }
+        return result;
+    }
+
+    private OutboxProperties properties() {
+        return new OutboxProperties(false, 100, 5000, 1000, 30000);
+    }
+
+    private OutboxMessage message(long id, String text) {
+        return new OutboxMessage(id, "registrar_service", text, new Timestamp(System.currentTimeMillis()));
+    }
+
+    private EnrollmentDTO enrollment(int id, String grade) {
+        return new EnrollmentDTO(id, grade, 2, "sam", "sam@csumb.edu", "cst489", "Software Engineering",
+                1, 1, "90", "B104", "W F 10-11", 4, 2025, "Fall");
+    }
+}
@@ -0,0 +1,72 @@
+package com.cst438.service;
+
+import com.cst438.domain.AssignmentRepository;
+import com.cst438.domain.SectionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * Rows the index reads from the database on a miss do not overwrite changes that were
+ * applied while they were being read.  Runs without Spring or a database.
+ */
+public class OwnershipIndexUnitTest {
+
+    SectionRepository sectionRepository = mock(SectionRepository.class);
+    AssignmentRepository assignmentRepository = mock(AssignmentRepository.class);
+    OwnershipIndex index = new OwnershipIndex(sectionRepository, assignmentRepository,
+            new OwnershipIndexProperties(Duration.ZERO));
+
+    @Test
+    public void staleOwnerNotStored() {
+        index.rebuild();
+        // the section changes owner after the old owner was read
+        when(sectionRepository.findInstructorEmailBySectionNo(7)).thenAnswer(call -> {
+            index.sectionChangedAfterCommit(7, "new@csumb.edu");
+            return "old@csumb.edu";
+        });
+        index.ownsSection("old@csumb.edu", 7);
+
+        assertTrue(index.ownsSection("new@csumb.edu", 7));
+        assertFalse(index.ownsSection("old@csumb.edu", 7));
+        verify(sectionRepository, times(1)).findInstructorEmailBySectionNo(7);
+    }
+
+    @Test
+    public void deletedAssignmentNotStored() {
+        index.rebuild();
+        // the assignment is deleted after its section was read
+        when(assignmentRepository.findSectionNoAndInstructorEmail(9)).thenAnswer(call -> {
+            index.assignmentRemovedAfterCommit(9);
+            return rows(new Object[] {7, "ted@csumb.edu"});
+        });
+        index.ownedSectionOfAssignment("ted@csumb.edu", 9);
+
+        // still not in the index, so the next check reads the database again
+        doReturn(List.of()).when(assignmentRepository).findSectionNoAndInstructorEmail(9);
+        assertEquals(-1, index.ownedSectionOfAssignment("ted@csumb.edu", 9));
+        verify(assignmentRepository, times(2)).findSectionNoAndInstructorEmail(9);
+    }
+
+    @Test
+    public void rebuildPicksUpChangesMadeElsewhere() {
+        when(sectionRepository.findAllInstructorEmails()).thenReturn(rows(new Object[] {7, "old@csumb.edu"}));
+        index.rebuild();
+        assertTrue(index.ownsSection("old@csumb.edu", 7));
+
+        // another node applied the registrar message
+        when(sectionRepository.findAllInstructorEmails()).thenReturn(rows(new Object[] {7, "new@csumb.edu"}));
+        index.rebuild();
+        assertFalse(index.ownsSection("old@csumb.edu", 7));
+        assertTrue(index.ownsSection("new@csumb.edu", 7));
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
@@ -0,0 +1,139 @@
+package com.cst438.service;
+
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.UserPasswordDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Registrar messages applied on parallel lanes keep their order per entity.
+ * Runs without Spring, a database or RabbitMQ.
+ */
+public class RegistrarLanesUnitTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // records the order in which messages are applied, per entity key
+    static class RecordingApplier extends RegistrarMessageApplier {
+        final Map<String, List<Integer>> applied = new ConcurrentHashMap<>();
+        final List<String> log = new ArrayList<>();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final Random random = new Random(438);
+
+        RecordingApplier() {
+            super(null, null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public void apply(List<RegistrarMessage> messages) {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                for (RegistrarMessage m : messages) {
+                    if (m.body() instanceof Integer seq) {
+                        applied.computeIfAbsent(m.key(), k -> new ArrayList<>()).add(seq);
+                    }
+                    synchronized (log) {
+                        log.add(m.command() + " " + m.key());
+                    }
+                }
+                Thread.sleep(random.nextInt(3));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    public void perEntityOrderKeptUnderBurst() {
+        RecordingApplier applier = new RecordingApplier();
+        RegistrarLanes lanes = new RegistrarLanes(applier, properties(8), registry);
+
+        // 200 entities with 25 updates each, randomly interleaved
+        int keys = 200;
+        int updates = 25;
+        int[] next = new int[keys];
+        List<RegistrarMessage> burst = new ArrayList<>();
+        Random random = new Random(2025);
+        while (burst.size() < keys * updates) {
+            int k = random.nextInt(keys);
+            if (next[k] < updates) {
+                burst.add(new RegistrarMessage("updateUser", "user:" + k, next[k]++));
+            }
+        }
+        // delivered to the listener in batches of 500
+        for (int i=0; i<burst.size(); i+=500) {
+            lanes.apply(burst.subList(i, Math.min(i+500, burst.size())));
+        }
+        lanes.shutdown();
+
+        assertEquals(keys, applier.applied.size());
+        for (Map.Entry<String, List<Integer>> e : applier.applied.entrySet()) {
+            List<Integer> seq = e.getValue();
+            assertEquals(updates, seq.size(), "messages lost for " + e.getKey());
+            for (int i=0; i<seq.size(); i++) {
+                assertEquals(i, seq.get(i), "messages for " + e.getKey() + " applied out of order");
+            }
+        }
+        assertTrue(applier.maxActive.get() > 1, "lanes did not run in parallel");
+        assertEquals(keys * updates, registry.counter("registrar.messages.applied").count());
+        // each transaction is timed once, in the timer for its number of messages
+        double messages = registry.find("registrar.apply.messages").summaries().stream()
+                .mapToDouble(DistributionSummary::totalAmount).sum();
+        long transactions = registry.find("registrar.apply").timers().stream().mapToLong(Timer::count).sum();
+        assertEquals(keys * updates, messages);
+        assertEquals(registry.find("registrar.apply.messages").summaries().stream()
+                .mapToLong(DistributionSummary::count).sum(), transactions);
+        assertTrue(transactions < keys * updates, "messages were not applied in batches");
+    }
+
+    @Test
+    public void enrollmentWaitsForItsUserAndSection() {
+        List<RegistrarMessage> batch = List.of(
+                new RegistrarMessage("addUser", "user:1", user(1)),
+                new RegistrarMessage("addEnrollment", "enrollment:1", enrollment(1, 1, 5)),
+                new RegistrarMessage("addEnrollment", "enrollment:2", enrollment(2, 9, 5)),
+                new RegistrarMessage("deleteUser", "user:9", 9),
+                new RegistrarMessage("addEnrollment", "enrollment:3", enrollment(3, 7, 5)));
+
+        List<List<RegistrarMessage>> segments = RegistrarLanes.segments(batch);
+        assertEquals(4, segments.size());
+        assertEquals(1, segments.get(0).size(), "addUser must be applied before the enrollment of that user");
+        assertEquals(2, segments.get(1).size(), "independent enrollments should share a segment");
+        assertEquals("deleteUser", segments.get(2).get(0).command());
+
+        RecordingApplier applier = new RecordingApplier();
+        RegistrarLanes lanes = new RegistrarLanes(applier, properties(4), registry);
+        lanes.apply(batch);
+        lanes.shutdown();
+        assertTrue(applier.log.indexOf("addUser user:1") < applier.log.indexOf("addEnrollment enrollment:1"));
+        assertTrue(applier.log.indexOf("deleteUser user:9") < applier.log.indexOf("addEnrollment enrollment:3"));
+        assertTrue(applier.log.indexOf("addEnrollment enrollment:2") < applier.log.indexOf("deleteUser user:9"));
+    }
+
+    private RegistrarListenerProperties properties(int lanes) {
+        return new RegistrarListenerProperties(500, 100, 1, 1000, lanes, false);
+    }
+
+    private UserPasswordDTO user(int id) {
+        return new UserPasswordDTO(id, "student", "student" + id + "@csumb.edu", "STUDENT", "password");
+    }
+
+    private EnrollmentDTO enrollment(int enrollmentId, int studentId, int sectionNo) {
+        return new EnrollmentDTO(enrollmentId, null, studentId, "student", null, "cst489", null,
+                1, sectionNo, null, null, null, 4, 2025, "Fall");
+    }
+}
@@ -0,0 +1,215 @@
+package com.cst438.service;
+
+import com.cst438.TestData;
+import com.cst438.domain.*;
+import com.cst438.dto.CourseDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.SectionDTO;
+import com.cst438.dto.UserPasswordDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class RegistrarMessageApplierUnitTest {
+
+    // a NOOP mock replaces RegistrarServiceProxy and RabbitMQ messaging
+    @MockitoBean
+    RegistrarServiceProxy registrarService;
+
+    @Autowired
+    RegistrarMessageApplier applier;
+    @Autowired
+    RegistrarLanes lanes;
+    @Autowired
+    CourseRepository courseRepository;
+    @Autowired
+    SectionRepository sectionRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+    @Autowired
+    UserDirectory userDirectory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    OwnershipIndex ownershipIndex;
+    @Autowired
+    AssignmentStatsService statsService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    ApplicationContext context;
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    // sections, users and enrollments 7001-7100 and course cst700 are created by these tests
+    @AfterEach
+    public void deleteTestData() {
+        TestData.deleteIdRange(context, 7001, 7101);
+        jdbcTemplate.update("delete from course where course_id='cst700'");
+        TestData.refresh(context);
+    }
+
+    // a batch creating a course, section, student and enrollment, then changing and deleting some of them
+    @Test
+    public void applyBatch() throws Exception {
+        List<RegistrarMessage> batch = List.of(
+                parse("addCourse", new CourseDTO("cst700", "Batch Course", 4)),
+                parse("addSection", section(7001, "B100")),
+                parse("addUser", user(7001, "batch1@csumb.edu")),
+                parse("addUser", user(7002, "batch2@csumb.edu")),
+                parse("addEnrollment", enrollment(7001, 7001, 7001)),
+                parse("addEnrollment", enrollment(7002, 7002, 7001)),
+                parse("updateSection", section(7001, "B200")),
+                RegistrarMessage.parse("deleteEnrollment 7002"),
+                RegistrarMessage.parse("deleteUser 7002"),
+                parse("addUser", user(7002, "batch2new@csumb.edu")));
+
+        applier.apply(batch);
+
+        assertEquals("Batch Course", courseRepository.findById("cst700").orElse(null).getTitle());
+        Section s = sectionRepository.findById(7001).orElse(null);
+        assertNotNull(s);
+        assertEquals("B200", s.getBuilding(), "update in the same batch was not applied");
+        assertNotNull(s.getTerm(), "term was not resolved");
+        Enrollment e = enrollmentRepository.findById(7001).orElse(null);
+        assertNotNull(e);
+        assertEquals(7001, e.getStudent().getId());
+        assertNull(enrollmentRepository.findById(7002).orElse(null), "enrollment was not deleted");
+        assertEquals("batch2new@csumb.edu", userRepository.findById(7002).orElse(null).getEmail(),
+                "user was not added again after delete");
+    }
+
+    // a batch that fails is applied one message at a time
+    @Test
+    public void badMessageDoesNotBlockBatch() throws Exception {
+        RegistrarServiceProxy listener = new RegistrarServiceProxy();
+        listener.lanes = lanes;
+
+        listener.receiveFromRegistrar(List.of(
+                "addUser " + mapper.writeValueAsString(user(7011, "batch11@csumb.edu")),
+                "addEnrollment " + mapper.writeValueAsString(enrollment(7011, 7011, 99999)), // no such section
+                "notAMessage {}",
+                "addUser " + mapper.writeValueAsString(user(7012, "batch12@csumb.edu"))));
+
+        assertNotNull(userRepository.findById(7011).orElse(null));
+        assertNotNull(userRepository.findById(7012).orElse(null));
+        assertNull(enrollmentRepository.findById(7011).orElse(null));
+    }
+
+    // cached users are dropped when registrar messages change them
+    @Test
+    public void userDirectoryFollowsRegistrar() throws Exception {
+        applier.apply(List.of(parse("addUser", user(7021, "dir1@csumb.edu"))));
+        UserDirectory.Entry cached = userDirectory.findByEmail("dir1@csumb.edu");
+        assertNotNull(cached);
+        assertSame(cached, userDirectory.findByEmail("dir1@csumb.edu"), "second lookup should be a cache hit");
+        assertSame(cached, userDirectory.findById(7021));
+
+        applier.apply(List.of(parse("updateUser", user(7021, "dir1new@csumb.edu"))));
+        assertNull(userDirectory.findByEmail("dir1@csumb.edu"), "old email still cached");
+        assertEquals(7021, userDirectory.findByEmail("dir1new@csumb.edu").id());
+        assertEquals("dir1new@csumb.edu", userDirectory.findById(7021).email());
+
+        applier.apply(List.of(RegistrarMessage.parse("deleteUser 7021")));
+        assertNull(userDirectory.findByEmail("dir1new@csumb.edu"), "deleted user still cached");
+        assertNull(userDirectory.findById(7021));
+    }
+
+    // a section's cached enrollment list is dropped when the database cascades a user delete
+    @Test
+    public void sectionCacheFollowsRegistrar() throws Exception {
+        applier.apply(List.of(
+                parse("addCourse", new CourseDTO("cst700", "Batch Course", 4)),
+                parse("addSection", section(7041, "C100")),
+                parse("addUser", user(7041, "cache1@csumb.edu")),
+                parse("addEnrollment", enrollment(7041, 7041, 7041))));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        // loads the section and its enrollments into the second-level cache
+        assertEquals(1, tx.execute(status -> sectionRepository.findById(7041).orElseThrow().getEnrollments().size()));
+
+        applier.apply(List.of(parse("updateSection", section(7041, "C200"))));
+        assertEquals("C200", sectionRepository.findById(7041).orElseThrow().getBuilding());
+
+        applier.apply(List.of(RegistrarMessage.parse("deleteUser 7041")));
+        assertEquals(0, tx.execute(status -> sectionRepository.findById(7041).orElseThrow().getEnrollments().size()),
+                "cached enrollments of a deleted user");
+    }
+
+    // section ownership follows registrar section messages
+    @Test
+    public void ownershipFollowsRegistrar() throws Exception {
+        applier.apply(List.of(
+                parse("addCourse", new CourseDTO("cst700", "Batch Course", 4)),
+                parse("addSection", section(7051, "D100"))));
+        assertTrue(ownershipIndex.ownsSection("ted@csumb.edu", 7051));
+        assertFalse(ownershipIndex.ownsSection("ted2@csumb.edu", 7051));
+
+        applier.apply(List.of(parse("updateSection", new SectionDTO(7051, 2025, "Fall", "cst700", "Batch Course", 1,
+                "D100", "101", "M W 10-11", "ted2", "ted2@csumb.edu"))));
+        assertFalse(ownershipIndex.ownsSection("ted@csumb.edu", 7051));
+        assertTrue(ownershipIndex.ownsSection("ted2@csumb.edu", 7051));
+
+        applier.apply(List.of(RegistrarMessage.parse("deleteSection 7051")));
+        assertFalse(ownershipIndex.ownsSection("ted2@csumb.edu", 7051));
+        // data.sql: section 1 belongs to ted
+        assertTrue(ownershipIndex.ownsSection("ted@csumb.edu", 1));
+        assertFalse(ownershipIndex.ownsSection("ted2@csumb.edu", 1));
+    }
+
+    // the statistics of an assignment drop the graded score of a deleted enrollment
+    @Test
+    public void statsFollowDeletedEnrollment() throws Exception {
+        applier.apply(List.of(
+                parse("addCourse", new CourseDTO("cst700", "Batch Course", 4)),
+                parse("addSection", section(7061, "E100")),
+                parse("addUser", user(7061, "stats1@csumb.edu")),
+                parse("addUser", user(7062, "stats2@csumb.edu")),
+                parse("addEnrollment", enrollment(7061, 7061, 7061)),
+                parse("addEnrollment", enrollment(7062, 7062, 7061))));
+        jdbcTemplate.update("insert into assignment (section_no, title, due_date) values (7061, 'stats', date '2025-09-01')");
+        int assignmentId = jdbcTemplate.queryForObject("select assignment_id from assignment where section_no=7061", Integer.class);
+        jdbcTemplate.update("insert into grade (enrollment_id, assignment_id, score) values (7061, ?, 90), (7062, ?, 70)",
+                assignmentId, assignmentId);
+        statsService.refresh(List.of(assignmentId));
+        assertEquals(2, statsService.getStats(assignmentId).count());
+
+        applier.apply(List.of(RegistrarMessage.parse("deleteEnrollment 7062")));
+        assertEquals(1, statsService.getStats(assignmentId).count());
+        assertEquals(90, statsService.getStats(assignmentId).min());
+
+        applier.apply(List.of(RegistrarMessage.parse("deleteUser 7061")));
+        assertEquals(0, statsService.getStats(assignmentId).count());
+    }
+
+    private RegistrarMessage parse(String cmd, Object dto) throws Exception {
+        return RegistrarMessage.parse(cmd + " " + mapper.writeValueAsString(dto));
+    }
+
+    private SectionDTO section(int secNo, String building) {
+        return new SectionDTO(secNo, 2025, "Fall", "cst700", "Batch Course", 1, building, "101",
+                "M W 10-11", "ted", "ted@csumb.edu");
+    }
+
+    private UserPasswordDTO user(int id, String email) {
+        return new UserPasswordDTO(id, "batch", email, "STUDENT", "password");
+    }
+
+    private EnrollmentDTO enrollment(int enrollmentId, int studentId, int sectionNo) {
+        return new EnrollmentDTO(enrollmentId, null, studentId, "batch", null, "cst700", null,
+                1, sectionNo, null, null, null, 4, 2025, "Fall");
+    }
+}
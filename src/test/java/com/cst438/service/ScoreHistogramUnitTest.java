@@ -0,0 +1,35 @@
+package com.cst438.service;
+
+import com.cst438.dto.AssignmentStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Statistics from the running histogram match statistics computed from the scores.
+ */
+public class ScoreHistogramUnitTest {
+
+    @Test
+    public void statsMatchScan() {
+        Random random = new Random(438);
+        for (int n : new int[] {1, 2, 7, 100, 1001}) {
+            ScoreHistogram h = new ScoreHistogram();
+            int[] scores = new int[n];
+            for (int i=0; i<n; i++) {
+                scores[i] = random.nextInt(101);
+                h.add(scores[i], 1);
+            }
+            Arrays.sort(scores);
+            AssignmentStatsDTO stats = h.toDTO(1);
+            assertEquals(n, stats.count());
+            assertEquals(Arrays.stream(scores).average().orElseThrow(), stats.mean().doubleValue(), 1e-9);
+            assertEquals((scores[(n-1)/2] + scores[n/2]) / 2.0, stats.median());
+            assertEquals(scores[0], stats.min());
+            assertEquals(scores[n-1], stats.max());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.cst438.service;
+
+import com.cst438.MutableClock;
+import com.cst438.domain.User;
+import com.cst438.domain.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * A node that receives no registrar messages sees a changed user after at most ttl.
+ * Runs without Spring or a database, time is moved by the test.
+ */
+public class UserDirectoryUnitTest {
+
+    @Test
+    public void changedUserSeenAfterTtl() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail("sam@csumb.edu")).thenReturn(user("INSTRUCTOR"));
+        MutableClock clock = new MutableClock(Instant.parse("2025-09-01T12:00:00Z"));
+        UserDirectory directory = new UserDirectory(userRepository,
+                new UserDirectoryProperties(100, Duration.ofSeconds(30)), clock, new SimpleMeterRegistry());
+
+        assertEquals("INSTRUCTOR", directory.findByEmail("sam@csumb.edu").type());
+        // the user is downgraded on another node, no invalidation arrives here
+        when(userRepository.findByEmail("sam@csumb.edu")).thenReturn(user("STUDENT"));
+        clock.advance(Duration.ofSeconds(29));
+        assertEquals("INSTRUCTOR", directory.findByEmail("sam@csumb.edu").type());
+        verify(userRepository, times(1)).findByEmail("sam@csumb.edu");
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals("STUDENT", directory.findByEmail("sam@csumb.edu").type());
+        verify(userRepository, times(2)).findByEmail("sam@csumb.edu");
+
+        // deleted on another node
+        when(userRepository.findByEmail("sam@csumb.edu")).thenReturn(null);
+        clock.advance(Duration.ofSeconds(30));
+        assertNull(directory.findByEmail("sam@csumb.edu"));
+    }
+
+    private static User user(String type) {
+        User u = new User();
+        u.setId(1);
+        u.setName("sam");
+        u.setEmail("sam@csumb.edu");
+        u.setPassword("password");
+        u.setType(type);
+        return u;
+    }
+}